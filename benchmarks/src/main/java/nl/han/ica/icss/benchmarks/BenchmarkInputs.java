@@ -0,0 +1,44 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resolves the benchmark input names used in @Param values to ICSS source text.
+ *
+ * "level0" .. "level4" load the example files bundled with ICSSTool,
+ * "synthetic-N" generates a valid stylesheet with N stylerules using {@link SyntheticStylesheet}.
+ */
+public final class BenchmarkInputs {
+
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    private BenchmarkInputs() { }
+
+    public static String load(String name) {
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            return synthetic(Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length())));
+        }
+        return resource(name + ".icss");
+    }
+
+    private static String resource(String resource) {
+        try (InputStream in = BenchmarkInputs.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown benchmark input: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Fixed seed so every run and every fork measures the same stylesheet
+    private static String synthetic(int rules) {
+        return new SyntheticStylesheet().seed(42).rules(rules).generate();
+    }
+}
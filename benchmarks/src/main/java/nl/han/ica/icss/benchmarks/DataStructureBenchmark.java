@@ -0,0 +1,96 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.datastructures.HANArrayQueue;
+import nl.han.ica.datastructures.HANArrayStack;
+import nl.han.ica.datastructures.HANQueue;
+import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.IHANQueue;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.parser.ASTListener;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the linked and array-backed stack and queue, both on their own and as the container stack of
+ * ASTListener. Run with "-prof gc" to see the per-element allocations of the linked versions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataStructureBenchmark {
+
+    // Stack and queue on their own, for a small and a large number of elements
+    @State(Scope.Benchmark)
+    public static class Containers {
+        @Param({"linked", "array"})
+        public String implementation;
+
+        @Param({"1000", "100000"})
+        public int elements;
+    }
+
+    // The container stack of ASTListener, the number of elements follows from the parse tree
+    @State(Scope.Benchmark)
+    public static class ListenerInput {
+        @Param({"linked", "array"})
+        public String implementation;
+
+        ParseTree parseTree;
+
+        @Setup
+        public void prepare() {
+            String source = BenchmarkInputs.load("synthetic-10000");
+            parseTree = PipelineStageBenchmark.parse(PipelineStageBenchmark.lex(source).getTokens());
+        }
+    }
+
+    @Benchmark
+    public void stackPushPop(Containers containers, Blackhole blackhole) {
+        IHANStack<Integer> stack = newStack(containers.implementation);
+        for (int i = 0; i < containers.elements; i++) {
+            stack.push(i);
+        }
+        for (int i = 0; i < containers.elements; i++) {
+            blackhole.consume(stack.pop());
+        }
+    }
+
+    @Benchmark
+    public void queueEnqueueDequeue(Containers containers, Blackhole blackhole) {
+        IHANQueue<Integer> queue = "array".equals(containers.implementation) ? new HANArrayQueue<>() : new HANQueue<>();
+        for (int i = 0; i < containers.elements; i++) {
+            queue.enqueue(i);
+        }
+        while (!queue.isEmpty()) {
+            blackhole.consume(queue.dequeue());
+        }
+    }
+
+    @Benchmark
+    public AST buildAst(ListenerInput input) {
+        ASTListener listener = new ASTListener(newStack(input.implementation));
+        new ParseTreeWalker().walk(listener, input.parseTree);
+        return listener.getAST();
+    }
+
+    private static <T> IHANStack<T> newStack(String implementation) {
+        return "array".equals(implementation) ? new HANArrayStack<>() : new HANStack<>();
+    }
+}
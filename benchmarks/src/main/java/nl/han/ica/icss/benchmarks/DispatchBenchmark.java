@@ -0,0 +1,179 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTBaseVisitor;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Expression;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.VariableReference;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares instanceof chains with ASTVisitor double dispatch by typing every expression of a stylesheet both ways.
+ * Variables count as scalars and no errors are set, so only the dispatch differs between the two benchmarks.
+ * PipelineStageBenchmark.check/evaluate/generate show the effect on the real passes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    @Param({"level4", "synthetic-10000"})
+    public String input;
+
+    List<Expression> expressions;
+    ExpressionTypeVisitor visitor;
+
+    @Setup
+    public void prepare() {
+        String source = BenchmarkInputs.load(input);
+        AST ast = PipelineStageBenchmark.buildAst(PipelineStageBenchmark.parse(PipelineStageBenchmark.lex(source).getTokens()));
+        expressions = new ArrayList<>();
+        collectExpressions(ast.root, expressions);
+        visitor = new ExpressionTypeVisitor();
+    }
+
+    @Benchmark
+    public void instanceofChain(Blackhole blackhole) {
+        for (Expression expression : expressions) {
+            blackhole.consume(typeOf(expression));
+        }
+    }
+
+    @Benchmark
+    public void visitor(Blackhole blackhole) {
+        for (Expression expression : expressions) {
+            blackhole.consume(expression.accept(visitor));
+        }
+    }
+
+    private static void collectExpressions(ASTNode node, List<Expression> expressions) {
+        if (node instanceof Declaration) {
+            expressions.add(((Declaration) node).expression);
+        } else if (node instanceof VariableAssignment) {
+            expressions.add(((VariableAssignment) node).expression);
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            collectExpressions(node.getChild(i), expressions);
+        }
+    }
+
+    // The chain the passes used before they were visitors
+    static ExpressionType typeOf(Expression expression) {
+        if (expression instanceof PixelLiteral) {
+            return ExpressionType.PIXEL;
+        } else if (expression instanceof PercentageLiteral) {
+            return ExpressionType.PERCENTAGE;
+        } else if (expression instanceof ColorLiteral) {
+            return ExpressionType.COLOR;
+        } else if (expression instanceof ScalarLiteral) {
+            return ExpressionType.SCALAR;
+        } else if (expression instanceof BoolLiteral) {
+            return ExpressionType.BOOL;
+        } else if (expression instanceof VariableReference) {
+            return ExpressionType.SCALAR;
+        } else if (expression instanceof Operation) {
+            Operation operation = (Operation) expression;
+            ExpressionType left = typeOf(operation.lhs);
+            ExpressionType right = typeOf(operation.rhs);
+            if (operation instanceof AddOperation || operation instanceof SubtractOperation) {
+                return left;
+            } else if (operation instanceof MultiplyOperation || operation instanceof DivideOperation) {
+                return left == ExpressionType.SCALAR ? right : left;
+            }
+        }
+        return ExpressionType.UNDEFINED;
+    }
+
+    static class ExpressionTypeVisitor extends ASTBaseVisitor<ExpressionType> {
+
+        @Override
+        public ExpressionType visitPixelLiteral(PixelLiteral literal) {
+            return ExpressionType.PIXEL;
+        }
+
+        @Override
+        public ExpressionType visitPercentageLiteral(PercentageLiteral literal) {
+            return ExpressionType.PERCENTAGE;
+        }
+
+        @Override
+        public ExpressionType visitColorLiteral(ColorLiteral literal) {
+            return ExpressionType.COLOR;
+        }
+
+        @Override
+        public ExpressionType visitScalarLiteral(ScalarLiteral literal) {
+            return ExpressionType.SCALAR;
+        }
+
+        @Override
+        public ExpressionType visitBoolLiteral(BoolLiteral literal) {
+            return ExpressionType.BOOL;
+        }
+
+        @Override
+        public ExpressionType visitVariableReference(VariableReference reference) {
+            return ExpressionType.SCALAR;
+        }
+
+        @Override
+        public ExpressionType visitAddOperation(AddOperation operation) {
+            ExpressionType left = operation.lhs.accept(this);
+            operation.rhs.accept(this);
+            return left;
+        }
+
+        @Override
+        public ExpressionType visitSubtractOperation(SubtractOperation operation) {
+            ExpressionType left = operation.lhs.accept(this);
+            operation.rhs.accept(this);
+            return left;
+        }
+
+        @Override
+        public ExpressionType visitMultiplyOperation(MultiplyOperation operation) {
+            ExpressionType left = operation.lhs.accept(this);
+            ExpressionType right = operation.rhs.accept(this);
+            return left == ExpressionType.SCALAR ? right : left;
+        }
+
+        @Override
+        public ExpressionType visitDivideOperation(DivideOperation operation) {
+            ExpressionType left = operation.lhs.accept(this);
+            ExpressionType right = operation.rhs.accept(this);
+            return left == ExpressionType.SCALAR ? right : left;
+        }
+
+        @Override
+        protected ExpressionType defaultResult() {
+            return ExpressionType.UNDEFINED;
+        }
+    }
+}
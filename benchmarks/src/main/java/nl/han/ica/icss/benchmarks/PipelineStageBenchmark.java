@@ -0,0 +1,192 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSFastLexer;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.ICSSRecursiveParser;
+import nl.han.ica.icss.transforms.CheckingEvaluator;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every Pipeline stage in isolation. Each stage gets its input prepared by the previous stages in the
+ * trial setup, so only the stage itself is inside the measured region.
+ *
+ * Run with "-prof gc" to get the allocation rate per stage.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineStageBenchmark {
+
+    @Param({"level0", "level1", "level2", "level3", "level4",
+            "synthetic-10000", "synthetic-100000", "synthetic-1000000"})
+    public String input;
+
+    String source;
+    List<? extends Token> tokens;
+    ICSSFastLexer fastTokens;
+    ParseTree parseTree;
+    AST checkedAst;
+    AST transformedAst;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        source = BenchmarkInputs.load(input);
+        tokens = lex(source).getTokens();
+        fastTokens = ICSSFastLexer.lex(source);
+        parseTree = parse(tokens);
+
+        checkedAst = buildAst(parseTree);
+        new Checker().check(checkedAst);
+
+        transformedAst = buildAst(parseTree);
+        new Evaluator().apply(transformedAst);
+    }
+
+    @Benchmark
+    public int lex() {
+        return lex(source).size();
+    }
+
+    @Benchmark
+    public int lexFast() {
+        return ICSSFastLexer.lex(source).getTokenCount();
+    }
+
+    @Benchmark
+    public ParseTree parse() {
+        return parse(tokens);
+    }
+
+    @Benchmark
+    public AST buildAst() {
+        return buildAst(parseTree);
+    }
+
+    // First stage of Pipeline.parseString, valid input never needs the full LL stage
+    @Benchmark
+    public ParseTree parseSll() {
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        return parser.stylesheet();
+    }
+
+    // Parse tree and AST in one pass, compare with parse + buildAst
+    @Benchmark
+    public AST parseRecursiveDescent() {
+        return new ICSSRecursiveParser(fastTokens).parse();
+    }
+
+    @Benchmark
+    public AST check() {
+        // Checking a valid AST sets the same types and declarations again, so the tree can be checked over and over
+        new Checker().check(checkedAst);
+        return checkedAst;
+    }
+
+    // Stylerules checked on the common fork-join pool, compare with check
+    @Benchmark
+    public AST checkParallel() {
+        new Checker().checkParallel(checkedAst);
+        return checkedAst;
+    }
+
+    @Benchmark
+    public AST evaluate(FreshCheckedAst fresh) {
+        new Evaluator().apply(fresh.ast);
+        return fresh.ast;
+    }
+
+    // Stylerules evaluated on the common fork-join pool, compare with evaluate
+    @Benchmark
+    public AST evaluateParallel(FreshCheckedAst fresh) {
+        new Evaluator().applyParallel(fresh.ast);
+        return fresh.ast;
+    }
+
+    // Check and evaluate in one pass, compare with check + evaluate
+    @Benchmark
+    public AST checkAndEvaluate(FreshAst fresh) {
+        new CheckingEvaluator().checkAndApply(fresh.ast);
+        return fresh.ast;
+    }
+
+    @Benchmark
+    public String generate() {
+        return new Generator().generate(transformedAst);
+    }
+
+    // Evaluator rewrites the tree in place, so every invocation needs its own copy
+    @State(Scope.Thread)
+    public static class FreshAst {
+        AST ast;
+
+        @Setup(Level.Invocation)
+        public void rebuild(PipelineStageBenchmark benchmark) {
+            ast = buildAst(benchmark.parseTree);
+        }
+    }
+
+    // Like FreshAst, checked first so the Evaluator gets the annotated tree it gets in the Pipeline
+    @State(Scope.Thread)
+    public static class FreshCheckedAst {
+        AST ast;
+
+        @Setup(Level.Invocation)
+        public void rebuild(PipelineStageBenchmark benchmark) {
+            ast = buildAst(benchmark.parseTree);
+            new Checker().check(ast);
+        }
+    }
+
+    static CommonTokenStream lex(String source) {
+        ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(source));
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        return tokens;
+    }
+
+    static ParseTree parse(List<? extends Token> tokens) {
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.removeErrorListeners();
+        return parser.stylesheet();
+    }
+
+    static AST buildAst(ParseTree parseTree) {
+        ASTListener listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parseTree);
+        return listener.getAST();
+    }
+}
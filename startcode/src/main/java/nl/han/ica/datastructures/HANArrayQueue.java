@@ -0,0 +1,89 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class HANArrayQueue<T> implements IHANQueue<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Circular buffer, the capacity is always a power of two so wrapping is a mask instead of a modulo
+    private Object[] elements;
+    private int head;
+    private int size;
+
+    public HANArrayQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HANArrayQueue(int initialCapacity) {
+        int capacity = 1;
+        while (capacity < initialCapacity) {
+            capacity <<= 1;
+        }
+        elements = new Object[capacity];
+    }
+
+    // Removes all elements from the queue
+    @Override
+    public void clear() {
+        Arrays.fill(elements, null);
+        head = 0;
+        size = 0;
+    }
+
+    // Returns true if the queue is empty
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Adds value T to the back of the queue
+    @Override
+    public void enqueue(T value) {
+        // Double the buffer when full, so enqueueing stays amortized O(1)
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    // Dequeues value at the front of the queue
+    @Override
+    public T dequeue() {
+        T value = peek();
+        // Clear the slot so the dequeued value can be garbage collected
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    // Returns value at the front of the queue without removing it
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        // Check if the queue is empty
+        if (size == 0) {
+            throw new NoSuchElementException("Cannot peek at empty queue");
+        }
+        return (T) elements[head];
+    }
+
+    // Returns the size of the queue
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    // Copies the elements into a buffer twice as large, unwrapping them so the front is at index 0
+    private void grow() {
+        Object[] grown = new Object[elements.length * 2];
+        int firstPart = elements.length - head;
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, head);
+        elements = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,50 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class HANArrayStack<T> implements IHANStack<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] elements;
+    private int size;
+
+    public HANArrayStack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HANArrayStack(int initialCapacity) {
+        elements = new Object[Math.max(1, initialCapacity)];
+    }
+
+    // Pushes value T to the top of the stack
+    @Override
+    public void push(T value) {
+        // Double the array when full, so pushing stays amortized O(1)
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    // Removes value at top of stack and returns it
+    @Override
+    public T pop() {
+        T value = peek();
+        // Clear the slot so the popped value can be garbage collected
+        elements[--size] = null;
+        return value;
+    }
+
+    // Returns value at the top of the stack without removing it
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        // Check if the stack is empty
+        if (size == 0) {
+            throw new NoSuchElementException("Cannot peek at empty stack");
+        }
+        return (T) elements[size - 1];
+    }
+}
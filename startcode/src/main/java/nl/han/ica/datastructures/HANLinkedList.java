@@ -1,34 +1,58 @@
 package nl.han.ica.datastructures;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 public class HANLinkedList<T> implements IHANLinkedList<T> {
     private ListNode<T> head;
+    private ListNode<T> tail;
+    private int size;
+    // Incremented on every structural change, so iterators can detect concurrent modification
+    private int modCount;
 
     // Adds value T to the front of the list
     @Override
     public void addFirst(T value) {
-        if (head == null) {
-            head = new ListNode<>(value);
-        } else {
-            ListNode<T> newNode = new ListNode<>(value);
-            newNode.setNext(head);
-            head = newNode;
+        ListNode<T> newNode = new ListNode<>(value);
+        newNode.setNext(head);
+        head = newNode;
+        // First node is also the last one
+        if (tail == null) {
+            tail = newNode;
+        }
+        size++;
+        modCount++;
+    }
+
+    // Adds value T to the back of the list
+    @Override
+    public void addLast(T value) {
+        // Empty list, the new node is also the first one
+        if (tail == null) {
+            addFirst(value);
+            return;
         }
+        ListNode<T> newNode = new ListNode<>(value);
+        tail.setNext(newNode);
+        tail = newNode;
+        size++;
+        modCount++;
     }
 
     // Removes all elements from the list
     @Override
     public void clear() {
-        // Set head to null to clear the list
+        // Set head and tail to null to clear the list
         head = null;
+        tail = null;
+        size = 0;
+        modCount++;
     }
 
     // Inserts value T at index position
     @Override
     public void insert(int index, T value) {
-        // Get size of the list
-        int size = getSize();
         // checks if index is a valid value above or at 0 and below or at size
         if (index < 0 || index > size) {
             throw new IndexOutOfBoundsException("Index out of bounds: " + index + ", Size: " + size);
@@ -36,6 +60,9 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
         // if index is 0, add to the front
         if (index == 0) {
             addFirst(value);
+        // if index is size, append without traversing
+        } else if (index == size) {
+            addLast(value);
         } else {
             // Else start at the head node
             ListNode<T> current = head;
@@ -49,6 +76,8 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
             newNode.setNext(current.getNext());
             // Link the previous node to the new node
             current.setNext(newNode);
+            size++;
+            modCount++;
         }
     }
 
@@ -56,8 +85,8 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
     @Override
     public void delete(int pos) {
         // checks if pos is a valid value above or at 0 and below or at size
-        if (pos < 0 || pos > getSize()) {
-            throw new IndexOutOfBoundsException("Index out of bounds: " + pos + ", Size: " + getSize());
+        if (pos < 0 || pos > size) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + pos + ", Size: " + size);
         }
         // if pos == 0, remove the first element
         if (pos == 0) {
@@ -73,6 +102,12 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
             if (current.getNext() != null) {
                 // Link the previous node to the node after skipping the deleted one
                 current.setNext(current.getNext().getNext());
+                // Deleted the last node, the previous one becomes the tail
+                if (current.getNext() == null) {
+                    tail = current;
+                }
+                size--;
+                modCount++;
             }
         }
     }
@@ -81,8 +116,12 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
     @Override
     public T get(int pos) {
         // checks if pos is a valid value above or at 0 and below or at size
-        if (pos < 0 || pos >= getSize()) {
-            throw new IndexOutOfBoundsException("Index out of bounds: " + pos + ", Size: " + getSize());
+        if (pos < 0 || pos >= size) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + pos + ", Size: " + size);
+        }
+        // Last element is kept separately, no need to traverse
+        if (pos == size - 1) {
+            return tail.getValue();
         }
         // Start at the head node
         ListNode<T> current = head;
@@ -104,31 +143,66 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
         }
         // List not empty, so remove the first element
         head = head.getNext();
+        // Removed the only element
+        if (head == null) {
+            tail = null;
+        }
+        size--;
+        modCount++;
     }
 
     // Returns the first element in the list
     @Override
     public T getFirst() {
         // Check if the list is empty
-        if (head == null) {;
+        if (head == null) {
             throw new NoSuchElementException("Cannot get from empty list");
         }
         // List not empty, return the first elements value
         return head.getValue();
     }
 
+    // Returns the last element in the list
+    @Override
+    public T getLast() {
+        // Check if the list is empty
+        if (tail == null) {
+            throw new NoSuchElementException("Cannot get from empty list");
+        }
+        // List not empty, return the last elements value
+        return tail.getValue();
+    }
 
-    // Traverses the list to count the number of nodes
+    // Returns the number of nodes, kept up to date by every modification
     @Override
     public int getSize() {
-        int size = 0;
-        ListNode<T> current = head;
-        // Count nodes until it hits the end of the list
-        while (current != null) {
-            size++;
-            current = current.getNext();
-        }
-        // oops.
         return size;
     }
+
+    // Iterates from head to tail, fails fast when the list is modified during iteration
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private ListNode<T> next = head;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T value = next.getValue();
+                next = next.getNext();
+                return value;
+            }
+        };
+    }
 }
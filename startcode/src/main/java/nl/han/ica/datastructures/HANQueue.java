@@ -5,7 +5,7 @@ public class HANQueue<T> implements IHANQueue<T> {
     private final HANLinkedList<T> hanLinkedList;
 
     public HANQueue() {
-        hanLinkedList = new HANLinkedList();
+        hanLinkedList = new HANLinkedList<>();
     }
 
     // Removes all elements from the queue
@@ -24,8 +24,8 @@ public class HANQueue<T> implements IHANQueue<T> {
     // Adds value T to the back of the queue
     @Override
     public void enqueue(T value) {
-        // insert value at the end of the linked list
-        hanLinkedList.insert(hanLinkedList.getSize(), value);
+        // append value at the end of the linked list
+        hanLinkedList.addLast(value);
     }
 
     // Dequeues value at the front of the queue
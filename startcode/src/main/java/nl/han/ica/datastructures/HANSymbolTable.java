@@ -0,0 +1,94 @@
+package nl.han.ica.datastructures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+public class HANSymbolTable<T> implements IHANSymbolTable<T> {
+
+    // Innermost binding per name, each binding links to the binding it shadows
+    private final HashMap<String, Binding<T>> bindings = new HashMap<>();
+    // Names declared per open scope, so popScope only touches what the scope added
+    private final ArrayList<ArrayList<String>> scopes = new ArrayList<>();
+
+    // Opens a new innermost scope
+    @Override
+    public void pushScope() {
+        scopes.add(new ArrayList<>());
+    }
+
+    // Closes the innermost scope and restores the bindings it shadowed
+    @Override
+    public void popScope() {
+        // Check if there is a scope to close
+        if (scopes.isEmpty()) {
+            throw new NoSuchElementException("Cannot pop scope from empty symbol table");
+        }
+        // Undo every declaration of the closed scope
+        for (String name : scopes.remove(scopes.size() - 1)) {
+            Binding<T> shadowed = bindings.get(name).shadowed;
+            if (shadowed == null) {
+                bindings.remove(name);
+            } else {
+                bindings.put(name, shadowed);
+            }
+        }
+    }
+
+    // Binds name to value in the innermost scope
+    @Override
+    public void put(String name, T value) {
+        // Check if there is a scope to declare in
+        if (scopes.isEmpty()) {
+            throw new NoSuchElementException("Cannot put into symbol table without a scope");
+        }
+        int depth = scopes.size();
+        Binding<T> current = bindings.get(name);
+        // Reassignment in the same scope, just replace the value
+        if (current != null && current.depth == depth) {
+            current.value = value;
+            return;
+        }
+        // New declaration, shadows the outer binding until this scope is closed
+        bindings.put(name, new Binding<>(value, depth, current));
+        scopes.get(depth - 1).add(name);
+    }
+
+    // Returns the innermost visible value of name, or null
+    @Override
+    public T get(String name) {
+        Binding<T> binding = bindings.get(name);
+        return binding == null ? null : binding.value;
+    }
+
+    // Returns true if name is visible in any open scope
+    @Override
+    public boolean contains(String name) {
+        return bindings.containsKey(name);
+    }
+
+    // Closes all scopes
+    @Override
+    public void clear() {
+        bindings.clear();
+        scopes.clear();
+    }
+
+    // Returns the number of open scopes
+    @Override
+    public int getDepth() {
+        return scopes.size();
+    }
+
+    private static class Binding<T> {
+        T value;
+        final int depth;
+        final Binding<T> shadowed;
+
+        Binding(T value, int depth, Binding<T> shadowed) {
+            this.value = value;
+            this.depth = depth;
+            this.shadowed = shadowed;
+        }
+    }
+}
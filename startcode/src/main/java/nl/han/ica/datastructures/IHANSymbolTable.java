@@ -0,0 +1,46 @@
+package nl.han.ica.datastructures;
+
+public interface IHANSymbolTable<T> {
+    /**
+     * Opens a new innermost scope in O(1) time
+     */
+    void pushScope();
+
+    /**
+     * Closes the innermost scope, every name declared in it is forgotten and
+     * the names it shadowed become visible again
+     */
+    void popScope();
+
+    /**
+     * Binds name to value in the innermost scope, replacing an earlier binding in that same scope
+     * @param name the variable name
+     * @param value the value to bind
+     */
+    void put(String name, T value);
+
+    /**
+     * Looks up the innermost visible binding of name in O(1) time
+     * @param name the variable name
+     * @return the bound value, or null when name is not defined in any open scope
+     */
+    T get(String name);
+
+    /**
+     * Checks whether name is defined in any open scope
+     * @param name the variable name
+     * @return true when defined, false otherwise
+     */
+    boolean contains(String name);
+
+    /**
+     * Closes all scopes. Depth equals 0 afterwards
+     */
+    void clear();
+
+    /**
+     * Number of open scopes
+     * @return the scope depth
+     */
+    int getDepth();
+}
@@ -5,16 +5,28 @@ import nl.han.ica.icss.checker.Checker;
 import nl.han.ica.icss.checker.SemanticError;
 import nl.han.ica.icss.generator.Generator;
 import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSFastLexer;
 import nl.han.ica.icss.parser.ICSSLexer;
 import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.ICSSParserFactory;
+import nl.han.ica.icss.parser.ICSSRecursiveParser;
+import nl.han.ica.icss.parser.MappedCharStream;
+import nl.han.ica.icss.transforms.CheckingEvaluator;
 import nl.han.ica.icss.transforms.Evaluator;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
@@ -25,10 +37,25 @@ public class Pipeline implements ANTLRErrorListener {
     private boolean parsed = false;
     private boolean checked = false;
     private boolean transformed = false;
+    private boolean recursiveDescent = false;
+    private boolean parallelCheck = false;
+    private boolean parallelTransform = false;
     private List<String> errors;
+    // Creates Antlr's lexers and parsers, with a prediction cache that is shared between Pipelines
+    private final ICSSParserFactory parserFactory;
+
+    // Parses done with Antlr's parser, and how many of those needed the second, full LL stage
+    private long antlrParses;
+    private long llFallbacks;
+    private boolean lastParseFellBack;
 
     public Pipeline() {
+        this(ICSSParserFactory.shared());
+    }
+
+    public Pipeline(ICSSParserFactory parserFactory) {
         errors = new ArrayList<>();
+        this.parserFactory = parserFactory;
     }
 
     public AST getAST() {
@@ -47,23 +74,111 @@ public class Pipeline implements ANTLRErrorListener {
         return transformed;
     }
 
+    // Parse with ICSSRecursiveParser instead of ICSSParser and ASTListener, both give the same AST
+    public void setRecursiveDescent(boolean recursiveDescent) {
+        this.recursiveDescent = recursiveDescent;
+    }
+    public boolean isRecursiveDescent() {
+        return recursiveDescent;
+    }
+
+    // Checks the stylerules concurrently, see Checker.checkParallel
+    public void setParallelCheck(boolean parallelCheck) {
+        this.parallelCheck = parallelCheck;
+    }
+    public boolean isParallelCheck() {
+        return parallelCheck;
+    }
+
+    // Evaluates the stylerules concurrently, see Evaluator.applyParallel
+    public void setParallelTransform(boolean parallelTransform) {
+        this.parallelTransform = parallelTransform;
+    }
+    public boolean isParallelTransform() {
+        return parallelTransform;
+    }
+
+    public long getAntlrParses() {
+        return antlrParses;
+    }
+    public long getLlFallbacks() {
+        return llFallbacks;
+    }
+    // True when the last parse had to be repeated in full LL mode
+    public boolean isLlFallback() {
+        return lastParseFellBack;
+    }
+
     public void parseString(String input) {
 
-        //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
-        ICSSLexer lexer = new ICSSLexer(inputStream);
+        errors.clear();
+        lastParseFellBack = false;
+        //Lex with the hand-written lexer, input it cannot tokenize goes through Antlr's generated lexer for the errors
+        ICSSFastLexer fastLexer = ICSSFastLexer.lex(input);
+
+        //Build the AST straight from the tokens, a syntax error falls through to Antlr's parser for the error messages
+        if (recursiveDescent && fastLexer != null) {
+            try {
+                this.ast = new ICSSRecursiveParser(fastLexer).parse();
+                parsed = true;
+                checked = transformed = false;
+                return;
+            } catch (ParseCancellationException e) {
+                // The parser only read the token buffer, so the lexer can still hand out its tokens
+            }
+        }
+
+        parseTokens(fastLexer != null ? fastLexer : createLexer(CharStreams.fromString(input)));
+    }
+
+    // Parses a file without reading it into a String: the file is memory-mapped and decoded by the lexer as it goes.
+    // Always uses Antlr's lexer and parser, files are limited to 2GB
+    public void parseFile(Path file) throws IOException {
+        errors.clear();
+        lastParseFellBack = false;
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        parseTokens(createLexer(new MappedCharStream(bytes, file.toString())));
+    }
+
+    // Antlr's lexer, reporting errors to this pipeline
+    private ICSSLexer createLexer(CharStream input) {
+        ICSSLexer lexer = parserFactory.createLexer(input);
         lexer.removeErrorListeners();
         lexer.addErrorListener(this);
-        errors.clear();
+        return lexer;
+    }
+
+    // Parses the tokens with Antlr's parser and extracts the AST
+    private void parseTokens(TokenSource lexer) {
         try {
             CommonTokenStream tokens = new CommonTokenStream(lexer);
 
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
+            //Parse (with Antlr's generated parser) in two stages. SLL prediction is enough for almost all input and
+            //much cheaper, it bails out on the first error without reporting it
+            ICSSParser parser = parserFactory.createParser(tokens);
             parser.removeErrorListeners();
-            parser.addErrorListener(this);
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            antlrParses++;
 
-            ParseTree parseTree = parser.stylesheet();
+            ParseTree parseTree;
+            try {
+                parseTree = parser.stylesheet();
+            } catch (ParseCancellationException e) {
+                //Either a real syntax error or input SLL cannot decide, parse again with full LL and report errors
+                llFallbacks++;
+                lastParseFellBack = true;
+                tokens.seek(0);
+                parser.reset();
+                parser.addErrorListener(this);
+                parser.setErrorHandler(new DefaultErrorStrategy());
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parseTree = parser.stylesheet();
+            }
 
             //Extract AST from the Antlr parse tree
             ASTListener listener = new ASTListener();
@@ -87,7 +202,11 @@ public class Pipeline implements ANTLRErrorListener {
             if(ast == null)
                 return false;
 
-           (new Checker()).check(this.ast);
+           if (parallelCheck) {
+               (new Checker()).checkParallel(this.ast);
+           } else {
+               (new Checker()).check(this.ast);
+           }
 
             ArrayList<SemanticError> errors = this.ast.getErrors();
             if (!errors.isEmpty()) {
@@ -101,6 +220,23 @@ public class Pipeline implements ANTLRErrorListener {
             return errors.isEmpty();
     }
 
+    // Check and transform in one pass over the AST, see CheckingEvaluator. The AST is only transformed without errors
+    public boolean checkAndTransform() {
+        if (ast == null)
+            return false;
+
+        boolean valid = new CheckingEvaluator().checkAndApply(ast);
+        if (!valid) {
+            for (SemanticError e : ast.getErrors()) {
+                errors.add(e.toString());
+            }
+        }
+
+        checked = valid;
+        transformed = valid && errors.isEmpty();
+        return valid;
+    }
+
     public void clearErrors(){
         errors.clear();
     }
@@ -109,7 +245,11 @@ public class Pipeline implements ANTLRErrorListener {
         if(ast == null)
             return;
 
-        (new Evaluator()).apply(ast);
+        if (parallelTransform) {
+            (new Evaluator()).applyParallel(ast);
+        } else {
+            (new Evaluator()).apply(ast);
+        }
 
 
         transformed = errors.isEmpty();
@@ -118,6 +258,11 @@ public class Pipeline implements ANTLRErrorListener {
         Generator generator = new Generator();
         return generator.generate(ast);
     }
+    // Streams the output to out instead of building it in memory
+    public void generate(Writer out) throws IOException {
+        Generator generator = new Generator();
+        generator.generate(ast, out);
+    }
 
     //Catch ANTLR errors
     @Override
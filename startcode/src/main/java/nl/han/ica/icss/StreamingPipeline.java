@@ -0,0 +1,146 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.datastructures.HANArrayStack;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.ICSSParserFactory;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a stylesheet one top level variable assignment or stylerule at a time: every node is parsed, checked,
+ * evaluated and written before the next one is read, and is dropped afterwards. Global variables are the only
+ * state kept between nodes, so memory is bounded by the largest single stylerule instead of the whole file.
+ *
+ * Nodes with syntax or semantic errors are reported and skipped, the output is only complete when compile returns true.
+ */
+public class StreamingPipeline extends BaseErrorListener {
+
+    private final List<String> errors = new ArrayList<>();
+    // Syntax errors reported while parsing the current node
+    private int syntaxErrors;
+
+    private long nodes;
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // Number of top level nodes read by the last compile
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    // Reads ICSS from input and writes CSS to output, returns true when there were no errors. Output is not closed
+    public boolean compile(Reader input, Writer output) throws IOException {
+        errors.clear();
+        nodes = 0;
+
+        //Lex with unbuffered streams, tokens have to copy their text because the characters are discarded
+        ICSSParserFactory factory = ICSSParserFactory.shared();
+        ICSSLexer lexer = factory.createLexer(new UnbufferedCharStream(input));
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(this);
+        TokenStream tokens = new UnbufferedTokenStream<>(lexer);
+
+        ICSSParser parser = factory.createParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(this);
+
+        // Every node is added to this one node stylesheet, so the regular passes can run on it
+        Stylesheet chunk = new Stylesheet();
+        AST chunkAst = new AST(chunk);
+        IHANStack<ASTNode> containers = new HANArrayStack<>();
+        containers.push(chunk);
+        ASTListener listener = new ASTListener(containers);
+        ParseTreeWalker walker = new ParseTreeWalker();
+
+        Checker checker = new Checker();
+        checker.begin();
+        Evaluator evaluator = new Evaluator();
+        evaluator.begin();
+        Generator generator = new Generator();
+
+        while (tokens.LA(1) != Token.EOF) {
+            int start = tokens.index();
+            syntaxErrors = 0;
+            nodes++;
+
+            //Parse one top level node, a capital identifier starts a variable assignment
+            ParserRuleContext parseTree;
+            try {
+                parseTree = tokens.LA(1) == ICSSLexer.CAPITAL_IDENT ? parser.variableAssignment() : parser.stylerule();
+            } catch (RuntimeException e) {
+                // The unbuffered streams cannot rewind to recover, give up on the rest of the input
+                errors.add("Syntax error: " + e.getMessage());
+                return false;
+            }
+            if (tokens.index() == start) {
+                // Nothing could be parsed, skip the offending token so the loop makes progress
+                parser.consume();
+            }
+            if (syntaxErrors > 0) {
+                continue;
+            }
+
+            //Extract the AST of this node only
+            chunk.body.clear();
+            walker.walk(listener, parseTree);
+            ASTNode node = chunk.body.get(0);
+
+            //Check the node against the global variables seen so far
+            ArrayList<SemanticError> semanticErrors;
+            if (node instanceof VariableAssignment) {
+                // The evaluator skips an assignment with errors, so the checker doesn't declare it either.
+                // Later nodes then see the same earlier value, or an undefined variable, in both
+                VariableAssignment assignment = (VariableAssignment) node;
+                ExpressionType type = checker.checkExpression(assignment.expression);
+                semanticErrors = chunkAst.getErrors();
+                if (semanticErrors.isEmpty()) {
+                    checker.declare(assignment, type);
+                }
+            } else {
+                checker.checkNode(node);
+                semanticErrors = chunkAst.getErrors();
+            }
+            if (!semanticErrors.isEmpty()) {
+                for (SemanticError error : semanticErrors) {
+                    errors.add(error.toString());
+                }
+                continue;
+            }
+
+            //Evaluate and write it, assignments only update the global variables
+            evaluator.evaluateNode(node);
+            generator.generate(chunkAst, output);
+        }
+        chunk.body.clear();
+        return errors.isEmpty();
+    }
+
+    //Catch ANTLR errors
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+        syntaxErrors++;
+        errors.add("Syntax error: " + msg);
+    }
+}
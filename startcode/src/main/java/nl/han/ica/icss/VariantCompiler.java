@@ -0,0 +1,101 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles one stylesheet into many variants, e.g. one per brand or theme. The stylesheet is parsed and checked once,
+ * every variant only gives other values to some of its global variables and is evaluated and generated on its own.
+ *
+ * Variants are evaluated into a ResolvedStylesheet, the checked AST is never changed after loading, so variants can
+ * be generated from any number of threads at once.
+ */
+public class VariantCompiler {
+
+    private final AST ast;
+    private final List<String> errors;
+    // Type of every global variable, a variant value must have the same type to keep the checked AST valid
+    private final Map<String, ExpressionType> globalTypes = new HashMap<>();
+
+    // Parses and checks the stylesheet, the variants can only be generated when there are no errors
+    public VariantCompiler(String source) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(source);
+        if (pipeline.isParsed()) {
+            pipeline.check();
+        }
+        errors = Collections.unmodifiableList(new ArrayList<>(pipeline.getErrors()));
+        ast = errors.isEmpty() ? pipeline.getAST() : null;
+        if (ast != null) {
+            collectGlobalTypes();
+        }
+    }
+
+    public boolean isValid() {
+        return ast != null;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // Names of the global variables a variant can set
+    public Map<String, ExpressionType> getGlobalTypes() {
+        return Collections.unmodifiableMap(globalTypes);
+    }
+
+    // Generates the CSS of one variant, globals replace the global assignments of the same name
+    public String generate(Map<String, Literal> globals) {
+        if (ast == null) {
+            throw new IllegalStateException("Stylesheet has errors: " + errors);
+        }
+        Checker checker = new Checker();
+        for (Map.Entry<String, Literal> global : globals.entrySet()) {
+            ExpressionType expected = globalTypes.get(global.getKey());
+            if (expected == null) {
+                throw new IllegalArgumentException("Unknown global variable: " + global.getKey());
+            }
+            ExpressionType actual = global.getValue().accept(checker);
+            if (actual != expected) {
+                throw new IllegalArgumentException("Global variable " + global.getKey() + " requires a "
+                        + expected + " value, not " + actual);
+            }
+        }
+        return new Generator().generate(new Evaluator().resolve(ast, globals));
+    }
+
+    // Generates all variants in parallel, the results are in the order of the variants
+    public List<String> generateAll(List<Map<String, Literal>> variants) {
+        return variants.parallelStream()
+                .map(this::generate)
+                .collect(Collectors.toList());
+    }
+
+    // Types of the global assignments, the check stored them on the names of the assignments
+    private void collectGlobalTypes() {
+        for (ASTNode child : ast.root.body) {
+            if (child instanceof VariableAssignment) {
+                VariableAssignment assignment = (VariableAssignment) child;
+                ExpressionType type = assignment.name.getType();
+                ExpressionType previous = globalTypes.putIfAbsent(assignment.name.name, type);
+                if (previous != null && previous != type) {
+                    // Assigned with different types, no single value fits every use
+                    globalTypes.put(assignment.name.name, ExpressionType.UNDEFINED);
+                }
+            }
+        }
+    }
+}
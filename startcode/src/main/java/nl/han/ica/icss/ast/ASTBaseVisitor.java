@@ -0,0 +1,122 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * Empty implementation of {@link ASTVisitor}, like the generated ICSSBaseListener.
+ * Every visit method returns {@link #defaultResult()}, so a pass only overrides the node types it handles.
+ */
+public class ASTBaseVisitor<R> implements ASTVisitor<R> {
+
+    // Result of every visit method that is not overridden
+    protected R defaultResult() {
+        return null;
+    }
+
+    @Override
+    public R visitStylesheet(Stylesheet stylesheet) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitStylerule(Stylerule stylerule) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitDeclaration(Declaration declaration) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitVariableAssignment(VariableAssignment assignment) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitIfClause(IfClause ifClause) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitElseClause(ElseClause elseClause) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitPropertyName(PropertyName propertyName) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitTagSelector(TagSelector selector) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitIdSelector(IdSelector selector) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitClassSelector(ClassSelector selector) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitVariableReference(VariableReference reference) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitPixelLiteral(PixelLiteral literal) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitPercentageLiteral(PercentageLiteral literal) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitScalarLiteral(ScalarLiteral literal) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitColorLiteral(ColorLiteral literal) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitBoolLiteral(BoolLiteral literal) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitAddOperation(AddOperation operation) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitSubtractOperation(SubtractOperation operation) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitMultiplyOperation(MultiplyOperation operation) {
+        return defaultResult();
+    }
+
+    @Override
+    public R visitDivideOperation(DivideOperation operation) {
+        return defaultResult();
+    }
+}
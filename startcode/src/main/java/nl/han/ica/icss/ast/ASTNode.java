@@ -3,9 +3,8 @@ package nl.han.ica.icss.ast;
 import nl.han.ica.icss.checker.SemanticError;
 
 import java.util.ArrayList;
-import java.util.List;
 
-public class ASTNode {
+public abstract class ASTNode {
 
     private SemanticError error = null;
 
@@ -24,6 +23,16 @@ public class ASTNode {
     public ArrayList<ASTNode> getChildren() {
         return new ArrayList<>();
     }
+    /*
+     Number of children, in the same order as getChildren(). Together with getChild(int)
+     this walks the tree without building a list for every node.
+     */
+    public int getChildCount() {
+        return 0;
+    }
+    public ASTNode getChild(int index) {
+        throw new IndexOutOfBoundsException("Index out of bounds: " + index + ", Size: " + getChildCount());
+    }
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
@@ -38,6 +47,12 @@ public class ASTNode {
         return this;
     }
 
+    /*
+     Double dispatch for ASTVisitor, every concrete node type calls its own visit method.
+     Abstract, so a node type without one does not compile.
+     */
+    public abstract <R> R accept(ASTVisitor<R> visitor);
+
     public SemanticError getError() {
         return this.error;
     }
@@ -50,6 +65,10 @@ public class ASTNode {
         return error != null;
     }
 
+    public void clearError() {
+        this.error = null;
+    }
+
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder();
@@ -60,9 +79,9 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		for(int i = 0; i < getChildCount(); i++) {
+			getChild(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
@@ -71,12 +90,11 @@ public class ASTNode {
         if(! (o instanceof ASTNode))
             return false;
         //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
+        ASTNode other = (ASTNode) o;
+        if(other.getChildCount() != this.getChildCount())
             return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
+        for(int i = 0; i < this.getChildCount(); i++ ) {
+            if(!this.getChild(i).equals(other.getChild(i))) {
                 return false;
             }
         }
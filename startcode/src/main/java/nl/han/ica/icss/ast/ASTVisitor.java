@@ -0,0 +1,59 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * Visitor over all concrete AST node types. A node calls the visit method for its own type from
+ * {@link ASTNode#accept(ASTVisitor)}, so a pass dispatches with one virtual call instead of an instanceof chain.
+ *
+ * @param <R> the result type of the visit methods, use Void for passes that only have side effects
+ */
+public interface ASTVisitor<R> {
+
+    R visitStylesheet(Stylesheet stylesheet);
+
+    R visitStylerule(Stylerule stylerule);
+
+    R visitDeclaration(Declaration declaration);
+
+    R visitVariableAssignment(VariableAssignment assignment);
+
+    R visitIfClause(IfClause ifClause);
+
+    R visitElseClause(ElseClause elseClause);
+
+    R visitPropertyName(PropertyName propertyName);
+
+    R visitTagSelector(TagSelector selector);
+
+    R visitIdSelector(IdSelector selector);
+
+    R visitClassSelector(ClassSelector selector);
+
+    R visitVariableReference(VariableReference reference);
+
+    R visitPixelLiteral(PixelLiteral literal);
+
+    R visitPercentageLiteral(PercentageLiteral literal);
+
+    R visitScalarLiteral(ScalarLiteral literal);
+
+    R visitColorLiteral(ColorLiteral literal);
+
+    R visitBoolLiteral(BoolLiteral literal);
+
+    R visitAddOperation(AddOperation operation);
+
+    R visitSubtractOperation(SubtractOperation operation);
+
+    R visitMultiplyOperation(MultiplyOperation operation);
+
+    R visitDivideOperation(DivideOperation operation);
+}
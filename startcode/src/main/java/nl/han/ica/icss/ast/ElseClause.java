@@ -25,6 +25,14 @@ public class ElseClause extends ASTNode{
 
         return children;
     }
+    @Override
+    public int getChildCount() {
+        return body.size();
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        return body.get(index);
+    }
 
     @Override
     public ASTNode addChild(ASTNode child) {
@@ -47,6 +55,8 @@ public class ElseClause extends ASTNode{
         return Objects.hash(body);
     }
 
-
-
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visitElseClause(this);
+    }
 }
@@ -1,3 +1,18 @@
 package nl.han.ica.icss.ast;
 
-public abstract class Expression extends ASTNode { }
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+public abstract class Expression extends ASTNode {
+
+    // Type found by the Checker, so later passes don't have to work it out again
+    private ExpressionType type;
+
+    // Null when the expression has not been checked
+    public ExpressionType getType() {
+        return type;
+    }
+
+    public void setType(ExpressionType type) {
+        this.type = type;
+    }
+}
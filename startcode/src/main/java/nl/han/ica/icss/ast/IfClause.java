@@ -38,6 +38,21 @@ public class IfClause extends ASTNode {
 
         return children;
     }
+    @Override
+    public int getChildCount() {
+        return 1 + body.size() + (elseClause != null ? 1 : 0);
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        // Condition first, then the body and the else clause last, like in getChildren()
+        if (index == 0)
+            return conditionalExpression;
+        if (index <= body.size())
+            return body.get(index - 1);
+        if (index == body.size() + 1 && elseClause != null)
+            return elseClause;
+        return super.getChild(index);
+    }
 
     @Override
     public ASTNode addChild(ASTNode child) {
@@ -75,4 +90,9 @@ public class IfClause extends ASTNode {
         return conditionalExpression;
     }
     public ElseClause getElseClause() { return elseClause; }
+
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visitIfClause(this);
+    }
 }
@@ -0,0 +1,296 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of an AST subtree. A node is its kind, the text of a leaf (name, selector or literal value) and its
+ * children in the order of {@link ASTNode#getChild(int)}. The hash code is computed once when the node is created,
+ * so nodes can be used as keys in caches, and equals returns false in O(1) when the hash codes differ.
+ *
+ * Nodes never change, so subtrees can be shared: {@link #withChild(int, ImmutableNode)} only copies the path to the
+ * changed child and a {@link NodeInterner} gives structurally equal subtrees, also of different files, one instance.
+ * Semantic errors are not part of the copy.
+ */
+public final class ImmutableNode {
+
+    public enum Kind {
+        STYLESHEET, STYLERULE, DECLARATION, PROPERTY_NAME, VARIABLE_ASSIGNMENT, VARIABLE_REFERENCE,
+        IF_CLAUSE, ELSE_CLAUSE, TAG_SELECTOR, ID_SELECTOR, CLASS_SELECTOR,
+        PIXEL_LITERAL, PERCENTAGE_LITERAL, SCALAR_LITERAL, COLOR_LITERAL, BOOL_LITERAL,
+        ADD_OPERATION, SUBTRACT_OPERATION, MULTIPLY_OPERATION, DIVIDE_OPERATION
+    }
+
+    private static final ImmutableNode[] NO_CHILDREN = new ImmutableNode[0];
+
+    private final Kind kind;
+    private final String text;
+    private final ImmutableNode[] children;
+    private final int hash;
+
+    // Children are not copied, callers hand over an array nobody else changes
+    private ImmutableNode(Kind kind, String text, ImmutableNode[] children) {
+        this.kind = kind;
+        this.text = text;
+        this.children = children;
+        int h = 31 * kind.ordinal() + (text != null ? text.hashCode() : 0);
+        for (ImmutableNode child : children) {
+            h = 31 * h + child.hash;
+        }
+        this.hash = h;
+    }
+
+    public ImmutableNode(Kind kind, String text, List<ImmutableNode> children) {
+        this(kind, text, children.toArray(NO_CHILDREN));
+    }
+
+    // Copies a mutable subtree, without sharing
+    public static ImmutableNode of(ASTNode node) {
+        return node.accept(new Freezer(null));
+    }
+
+    // Copies a subtree, every node is interned so equal subtrees share one instance
+    static ImmutableNode of(ASTNode node, NodeInterner interner) {
+        return node.accept(new Freezer(interner));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    // Name, selector or literal value of a leaf, null for other nodes
+    public String getText() {
+        return text;
+    }
+
+    public int getChildCount() {
+        return children.length;
+    }
+
+    public ImmutableNode getChild(int index) {
+        if (index < 0 || index >= children.length) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index + ", Size: " + children.length);
+        }
+        return children[index];
+    }
+
+    public List<ImmutableNode> getChildren() {
+        return Collections.unmodifiableList(Arrays.asList(children));
+    }
+
+    // Node with one child replaced, all other children are shared with this node
+    public ImmutableNode withChild(int index, ImmutableNode child) {
+        getChild(index);
+        if (children[index] == child) {
+            return this;
+        }
+        ImmutableNode[] copy = children.clone();
+        copy[index] = child;
+        return new ImmutableNode(kind, text, copy);
+    }
+
+    // Builds a new mutable subtree, e.g. to evaluate a cached stylesheet
+    public ASTNode toASTNode() {
+        ASTNode node = createNode();
+        for (ImmutableNode child : children) {
+            node.addChild(child.toASTNode());
+        }
+        return node;
+    }
+
+    private ASTNode createNode() {
+        switch (kind) {
+            case STYLESHEET: return new Stylesheet();
+            case STYLERULE: return new Stylerule();
+            case DECLARATION: return new Declaration();
+            case PROPERTY_NAME: return new PropertyName(text);
+            case VARIABLE_ASSIGNMENT: return new VariableAssignment();
+            case VARIABLE_REFERENCE: return new VariableReference(text);
+            case IF_CLAUSE: return new IfClause();
+            case ELSE_CLAUSE: return new ElseClause();
+            case TAG_SELECTOR: return new TagSelector(text);
+            case ID_SELECTOR: return new IdSelector(text);
+            case CLASS_SELECTOR: return new ClassSelector(text);
+            case PIXEL_LITERAL: return new PixelLiteral(Integer.parseInt(text));
+            case PERCENTAGE_LITERAL: return new PercentageLiteral(Integer.parseInt(text));
+            case SCALAR_LITERAL: return new ScalarLiteral(Integer.parseInt(text));
+            case COLOR_LITERAL: return new ColorLiteral(text);
+            case BOOL_LITERAL: return new BoolLiteral(Boolean.parseBoolean(text));
+            case ADD_OPERATION: return new AddOperation();
+            case SUBTRACT_OPERATION: return new SubtractOperation();
+            case MULTIPLY_OPERATION: return new MultiplyOperation();
+            case DIVIDE_OPERATION: return new DivideOperation();
+            default: throw new IllegalStateException("Unknown kind " + kind);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ImmutableNode)) return false;
+        ImmutableNode other = (ImmutableNode) o;
+        // The cached hash codes rule out most unequal nodes without looking at the subtrees
+        if (hash != other.hash || kind != other.kind || children.length != other.children.length) return false;
+        if (text != null ? !text.equals(other.text) : other.text != null) return false;
+        for (int i = 0; i < children.length; i++) {
+            if (!children[i].equals(other.children[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        toString(builder);
+        return builder.toString();
+    }
+
+    private void toString(StringBuilder builder) {
+        builder.append("[").append(kind);
+        if (text != null) {
+            builder.append(" (").append(text).append(")");
+        }
+        builder.append("|");
+        for (ImmutableNode child : children) {
+            child.toString(builder);
+        }
+        builder.append("]");
+    }
+
+    // Copies a subtree bottom up, so the children of a node are final before its hash code is computed
+    private static class Freezer implements ASTVisitor<ImmutableNode> {
+
+        private final NodeInterner interner;
+
+        Freezer(NodeInterner interner) {
+            this.interner = interner;
+        }
+
+        private ImmutableNode node(Kind kind, String text, ASTNode source) {
+            int count = source.getChildCount();
+            ImmutableNode[] children = count == 0 ? NO_CHILDREN : new ImmutableNode[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = source.getChild(i).accept(this);
+            }
+            ImmutableNode node = new ImmutableNode(kind, text, children);
+            return interner != null ? interner.intern(node) : node;
+        }
+
+        @Override
+        public ImmutableNode visitStylesheet(Stylesheet stylesheet) {
+            return node(Kind.STYLESHEET, null, stylesheet);
+        }
+
+        @Override
+        public ImmutableNode visitStylerule(Stylerule stylerule) {
+            return node(Kind.STYLERULE, null, stylerule);
+        }
+
+        @Override
+        public ImmutableNode visitDeclaration(Declaration declaration) {
+            return node(Kind.DECLARATION, null, declaration);
+        }
+
+        @Override
+        public ImmutableNode visitVariableAssignment(VariableAssignment assignment) {
+            return node(Kind.VARIABLE_ASSIGNMENT, null, assignment);
+        }
+
+        @Override
+        public ImmutableNode visitIfClause(IfClause ifClause) {
+            return node(Kind.IF_CLAUSE, null, ifClause);
+        }
+
+        @Override
+        public ImmutableNode visitElseClause(ElseClause elseClause) {
+            return node(Kind.ELSE_CLAUSE, null, elseClause);
+        }
+
+        @Override
+        public ImmutableNode visitPropertyName(PropertyName propertyName) {
+            return node(Kind.PROPERTY_NAME, propertyName.name, propertyName);
+        }
+
+        @Override
+        public ImmutableNode visitTagSelector(TagSelector selector) {
+            return node(Kind.TAG_SELECTOR, selector.tag, selector);
+        }
+
+        @Override
+        public ImmutableNode visitIdSelector(IdSelector selector) {
+            return node(Kind.ID_SELECTOR, selector.id, selector);
+        }
+
+        @Override
+        public ImmutableNode visitClassSelector(ClassSelector selector) {
+            return node(Kind.CLASS_SELECTOR, selector.cls, selector);
+        }
+
+        @Override
+        public ImmutableNode visitVariableReference(VariableReference reference) {
+            return node(Kind.VARIABLE_REFERENCE, reference.name, reference);
+        }
+
+        @Override
+        public ImmutableNode visitPixelLiteral(PixelLiteral literal) {
+            return node(Kind.PIXEL_LITERAL, Integer.toString(literal.value), literal);
+        }
+
+        @Override
+        public ImmutableNode visitPercentageLiteral(PercentageLiteral literal) {
+            return node(Kind.PERCENTAGE_LITERAL, Integer.toString(literal.value), literal);
+        }
+
+        @Override
+        public ImmutableNode visitScalarLiteral(ScalarLiteral literal) {
+            return node(Kind.SCALAR_LITERAL, Integer.toString(literal.value), literal);
+        }
+
+        @Override
+        public ImmutableNode visitColorLiteral(ColorLiteral literal) {
+            return node(Kind.COLOR_LITERAL, literal.value, literal);
+        }
+
+        @Override
+        public ImmutableNode visitBoolLiteral(BoolLiteral literal) {
+            return node(Kind.BOOL_LITERAL, Boolean.toString(literal.value), literal);
+        }
+
+        @Override
+        public ImmutableNode visitAddOperation(AddOperation operation) {
+            return node(Kind.ADD_OPERATION, null, operation);
+        }
+
+        @Override
+        public ImmutableNode visitSubtractOperation(SubtractOperation operation) {
+            return node(Kind.SUBTRACT_OPERATION, null, operation);
+        }
+
+        @Override
+        public ImmutableNode visitMultiplyOperation(MultiplyOperation operation) {
+            return node(Kind.MULTIPLY_OPERATION, null, operation);
+        }
+
+        @Override
+        public ImmutableNode visitDivideOperation(DivideOperation operation) {
+            return node(Kind.DIVIDE_OPERATION, null, operation);
+        }
+    }
+}
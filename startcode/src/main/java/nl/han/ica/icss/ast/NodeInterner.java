@@ -0,0 +1,32 @@
+package nl.han.ica.icss.ast;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one instance of every distinct {@link ImmutableNode}. Freezing many files through the same interner shares
+ * the subtrees they have in common, e.g. the same declarations or a common set of variables. Safe to use from
+ * multiple threads.
+ */
+public class NodeInterner {
+
+    private final ConcurrentHashMap<ImmutableNode, ImmutableNode> nodes = new ConcurrentHashMap<>();
+
+    // Immutable copy of a mutable subtree, sharing every subtree that was interned before
+    public ImmutableNode freeze(ASTNode node) {
+        return ImmutableNode.of(node, this);
+    }
+
+    // The instance equal to node that was interned first, or node itself
+    public ImmutableNode intern(ImmutableNode node) {
+        ImmutableNode existing = nodes.putIfAbsent(node, node);
+        return existing != null ? existing : node;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        nodes.clear();
+    }
+}
@@ -29,6 +29,17 @@ public class Stylerule extends ASTNode {
 
 		return children;
 	}
+	@Override
+	public int getChildCount() {
+		return selectors.size() + body.size();
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		// Selectors come before the body, like in getChildren()
+		if(index < selectors.size())
+			return selectors.get(index);
+		return body.get(index - selectors.size());
+	}
 
     @Override
     public ASTNode addChild(ASTNode child) {
@@ -53,4 +64,9 @@ public class Stylerule extends ASTNode {
 	public int hashCode() {
 		return Objects.hash(selectors, body);
 	}
+
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitStylerule(this);
+	}
 }
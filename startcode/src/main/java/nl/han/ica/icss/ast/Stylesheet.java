@@ -29,6 +29,14 @@ public class Stylesheet extends ASTNode {
 		return this.body;
 	}
 	@Override
+	public int getChildCount() {
+		return body.size();
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		return body.get(index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
 	    	body.add(child);
 	    	return this;
@@ -53,4 +61,9 @@ public class Stylesheet extends ASTNode {
 
 		return Objects.hash(body);
 	}
+
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitStylesheet(this);
+	}
 }
@@ -39,6 +39,20 @@ public class VariableAssignment extends ASTNode {
 		return children;
 	}
 
+	@Override
+	public int getChildCount() {
+		return (name != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+
+	@Override
+	public ASTNode getChild(int index) {
+		if(index == 0 && name != null)
+			return name;
+		if(index == (name != null ? 1 : 0) && expression != null)
+			return expression;
+		return super.getChild(index);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -53,4 +67,9 @@ public class VariableAssignment extends ASTNode {
 	public int hashCode() {
 		return Objects.hash(name, expression);
 	}
+
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitVariableAssignment(this);
+	}
 }
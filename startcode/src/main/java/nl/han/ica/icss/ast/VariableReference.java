@@ -5,12 +5,23 @@ import java.util.Objects;
 public class VariableReference extends Expression {
 
 	public String name;
+	// Assignment this reference resolves to, set by the Checker. Null for the name of an assignment
+	// and for a variable that is not defined. Out of date once the AST changes, until it is checked again
+	private VariableAssignment declaration;
 	
 	public VariableReference(String name) {
 		super();
 		this.name = name;
 	}
 
+	public VariableAssignment getDeclaration() {
+		return declaration;
+	}
+
+	public void setDeclaration(VariableAssignment declaration) {
+		this.declaration = declaration;
+	}
+
 	@Override
 	public String getNodeLabel() {
 		return "VariableReference (" + name + ")";
@@ -30,4 +41,9 @@ public class VariableReference extends Expression {
 
 		return Objects.hash(name);
 	}
+
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitVariableReference(this);
+	}
 }
@@ -1,5 +1,6 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
 
 import java.util.Objects;
@@ -28,4 +29,9 @@ public class ColorLiteral extends Literal {
 
         return Objects.hash(value);
     }
+
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visitColorLiteral(this);
+    }
 }
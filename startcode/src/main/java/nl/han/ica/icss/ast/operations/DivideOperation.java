@@ -1,5 +1,6 @@
 package nl.han.ica.icss.ast.operations;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Operation;
 
 public class DivideOperation extends Operation {
@@ -8,5 +9,9 @@ public class DivideOperation extends Operation {
     public String getNodeLabel() {
         return "Divide";
     }
-}
 
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visitDivideOperation(this);
+    }
+}
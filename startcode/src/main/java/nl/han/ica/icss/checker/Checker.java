@@ -1,7 +1,7 @@
 package nl.han.ica.icss.checker;
 
-import nl.han.ica.datastructures.HANLinkedList;
-import nl.han.ica.datastructures.IHANLinkedList;
+import nl.han.ica.datastructures.HANSymbolTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.AddOperation;
@@ -10,59 +10,153 @@ import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.types.ExpressionType;
 import nl.han.ica.icss.ast.operations.DivideOperation;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class Checker {
+// Visits expressions to their type, statements return null. The type of every expression is stored on it, and every
+// variable reference gets the assignment it resolves to, the type of a variable is kept on the name of its assignment
+public class Checker extends ASTBaseVisitor<ExpressionType> {
 
-    private IHANLinkedList<HashMap<String, ExpressionType>> variableTypes;
+    // Stylerules per task when checking in parallel
+    private static final int RULES_PER_TASK = 64;
+
+    // Assignment in scope per variable name
+    private IHANSymbolTable<VariableAssignment> variables;
+    // Assignments of the global variables a stylerule can see, only used for the stylerules of checkParallel,
+    // otherwise globals are in the global scope of variables
+    private Map<String, VariableAssignment> globalAssignments = Collections.emptyMap();
 
     // Checks the AST for semantic errors
     public void check(AST ast) {
-        // Initialize variable types linked list
-        variableTypes = new HANLinkedList<>();
-        // Start with global scope
-        variableTypes.addFirst(new HashMap<>());
+        begin();
         // Check the stylesheet
-        checkStylesheet(ast.root);
+        ast.root.accept(this);
+    }
+
+    // Checks like check(AST), with the stylerules checked concurrently on the common fork-join pool
+    public void checkParallel(AST ast) {
+        checkParallel(ast, ForkJoinPool.commonPool());
+    }
+
+    // Checks like check(AST), with the stylerules checked concurrently on pool. The global variable assignments are
+    // checked first, in order, every stylerule gets a snapshot of the globals assigned before it. Errors are set on
+    // the nodes as usual, so AST.getErrors() gives them in source order
+    public void checkParallel(AST ast, ForkJoinPool pool) {
+        begin();
+        Map<String, VariableAssignment> globals = new HashMap<>();
+        Map<String, VariableAssignment> snapshot = null;
+        List<Stylerule> rules = new ArrayList<>();
+        List<Map<String, VariableAssignment>> snapshots = new ArrayList<>();
+        for (ASTNode child : ast.root.body) {
+            if (child instanceof Stylerule) {
+                // Usually all globals come first, then every stylerule shares the same snapshot
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableMap(new HashMap<>(globals));
+                }
+                rules.add((Stylerule) child);
+                snapshots.add(snapshot);
+            } else {
+                child.accept(this);
+                if (child instanceof VariableAssignment) {
+                    VariableAssignment assignment = (VariableAssignment) child;
+                    globals.put(assignment.name.name, assignment);
+                    snapshot = null;
+                }
+            }
+        }
+        pool.invoke(new CheckRules(rules, snapshots, 0, rules.size()));
+    }
+
+    // Checks a range of stylerules, split in halves until it is small enough for one checker
+    private static class CheckRules extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Stylerule> rules;
+        private final List<Map<String, VariableAssignment>> snapshots;
+        private final int from;
+        private final int to;
+
+        CheckRules(List<Stylerule> rules, List<Map<String, VariableAssignment>> snapshots, int from, int to) {
+            this.rules = rules;
+            this.snapshots = snapshots;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > RULES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CheckRules(rules, snapshots, from, middle), new CheckRules(rules, snapshots, middle, to));
+                return;
+            }
+            Checker checker = new Checker();
+            checker.begin();
+            for (int i = from; i < to; i++) {
+                checker.globalAssignments = snapshots.get(i);
+                rules.get(i).accept(checker);
+            }
+        }
+    }
+
+    // Starts a check that is fed one top level variable assignment or stylerule at a time through checkNode
+    public void begin() {
+        // Initialize variables symbol table
+        variables = new HANSymbolTable<>();
+        // Start with global scope
+        variables.pushScope();
+    }
+
+    // Checks a top level node, global variables assigned by earlier nodes are still known
+    public void checkNode(ASTNode node) {
+        node.accept(this);
     }
 
     // Checks all variable assignments and stylerules in the stylesheet
-    private void checkStylesheet(Stylesheet stylesheet) {
+    @Override
+    public ExpressionType visitStylesheet(Stylesheet stylesheet) {
         // Loop through all children
-        for (ASTNode child : stylesheet.getChildren()) {
-            if (child instanceof VariableAssignment) {
-                checkVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof Stylerule) {
-                checkStylerule((Stylerule) child);
-            }
+        for (int i = 0; i < stylesheet.getChildCount(); i++) {
+            stylesheet.getChild(i).accept(this);
         }
+        return null;
     }
 
     // Checks a stylerule and its contents
-    private void checkStylerule(Stylerule stylerule) {
+    @Override
+    public ExpressionType visitStylerule(Stylerule stylerule) {
         // Enter new scope for stylerule
-        variableTypes.addFirst(new HashMap<>());
-
-        // Check all children in the stylerule
-        for (ASTNode child : stylerule.getChildren()) {
-            if (child instanceof Declaration) {
-                checkDeclaration((Declaration) child);
-            } else if (child instanceof VariableAssignment) {
-                checkVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof IfClause) {
-                checkIfClause((IfClause) child);
-            }
-        }
+        variables.pushScope();
+
+        // Check all children in the stylerule body
+        checkBody(stylerule.body);
 
         // Exit scope
-        variableTypes.removeFirst();
+        variables.popScope();
+        return null;
+    }
+
+    // Checks the declarations, variable assignments and if clauses of a body
+    private void checkBody(ArrayList<ASTNode> body) {
+        for (ASTNode child : body) {
+            child.accept(this);
+        }
     }
 
     // Checks if a declaration has the correct property-value type match
-    private void checkDeclaration(Declaration declaration) {
-        // Get the type of the value
-        ExpressionType valueType = getExpressionType(declaration.expression);
+    @Override
+    public ExpressionType visitDeclaration(Declaration declaration) {
+        checkDeclaration(declaration, getExpressionType(declaration.expression));
+        return null;
+    }
 
+    // Checks if the property of a declaration accepts a value of valueType, shared with the fused CheckingEvaluator
+    public static void checkDeclaration(Declaration declaration, ExpressionType valueType) {
         // Get the property name
         String propertyName = declaration.property.name;
         // Check if color properties have color values
@@ -79,171 +173,203 @@ public class Checker {
     }
 
     // Checks and stores a variable assignment
-    private void checkVariableAssignment(VariableAssignment assignment) {
-        // Get the type of the expression
-        ExpressionType type = getExpressionType(assignment.expression);
-        // Store variable type in current scope
-        variableTypes.getFirst().put(assignment.name.name, type);
+    @Override
+    public ExpressionType visitVariableAssignment(VariableAssignment assignment) {
+        declare(assignment, checkExpression(assignment.expression));
+        return null;
+    }
+
+    // Checks an expression against the variables in scope and returns its type
+    public ExpressionType checkExpression(Expression expression) {
+        return getExpressionType(expression);
+    }
+
+    // Stores a variable assignment in the current scope, type is the type of its expression
+    public void declare(VariableAssignment assignment, ExpressionType type) {
+        assignment.name.setType(type);
+        variables.put(assignment.name.name, assignment);
     }
 
     // Checks an if clause and its body
-    private void checkIfClause(IfClause ifClause) {
-        // Check if condition is boolean
-        ExpressionType conditionType = getExpressionType(ifClause.conditionalExpression);
-        if (conditionType != ExpressionType.BOOL) {
-            ifClause.setError("If condition must be a boolean value");
-        }
+    @Override
+    public ExpressionType visitIfClause(IfClause ifClause) {
+        checkCondition(ifClause, getExpressionType(ifClause.conditionalExpression));
 
         // Enter new scope for if body
-        variableTypes.addFirst(new HashMap<>());
+        variables.pushScope();
 
         // Checks all children in the if body
-        for (ASTNode child : ifClause.body) {
-            if (child instanceof Declaration) {
-                checkDeclaration((Declaration) child);
-            } else if (child instanceof VariableAssignment) {
-                checkVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof IfClause) {
-                checkIfClause((IfClause) child);
-            }
-        }
+        checkBody(ifClause.body);
 
         // Exit if scope
-        variableTypes.removeFirst();
+        variables.popScope();
 
         // Check else clause if present
         if (ifClause.elseClause != null) {
-            checkElseClause(ifClause.elseClause);
+            ifClause.elseClause.accept(this);
+        }
+        return null;
+    }
+
+    // Checks if the condition of an if clause is boolean
+    public static void checkCondition(IfClause ifClause, ExpressionType conditionType) {
+        if (conditionType != ExpressionType.BOOL) {
+            ifClause.setError("If condition must be a boolean value");
         }
     }
 
     // Checks an else clause and its body
-    private void checkElseClause(ElseClause elseClause) {
+    @Override
+    public ExpressionType visitElseClause(ElseClause elseClause) {
         // Enter new scope for else body
-        variableTypes.addFirst(new HashMap<>());
+        variables.pushScope();
 
         // Check all children in the else body
-        for (ASTNode child : elseClause.body) {
-            // Checks for declaration
-            if (child instanceof Declaration) {
-                checkDeclaration((Declaration) child);
-            // Checks for variable assignment
-            } else if (child instanceof VariableAssignment) {
-                checkVariableAssignment((VariableAssignment) child);
-            // Checks for if clause
-            } else if (child instanceof IfClause) {
-                checkIfClause((IfClause) child);
-            }
-        }
+        checkBody(elseClause.body);
 
         // Exit else scope
-        variableTypes.removeFirst();
+        variables.popScope();
+        return null;
     }
 
-    // Returns the type of an expression
+    // Returns the type of an expression and stores it on the expression, UNDEFINED when it is missing
     private ExpressionType getExpressionType(Expression expression) {
-        // Check what type of expression and return the appropriate type
-        if (expression instanceof PixelLiteral) {
-            return ExpressionType.PIXEL;
-        } else if (expression instanceof PercentageLiteral) {
-            return ExpressionType.PERCENTAGE;
-        } else if (expression instanceof ColorLiteral) {
-            return ExpressionType.COLOR;
-        } else if (expression instanceof ScalarLiteral) {
-            return ExpressionType.SCALAR;
-        } else if (expression instanceof BoolLiteral) {
-            return ExpressionType.BOOL;
-        } else if (expression instanceof VariableReference) {
-            return checkVariableReference((VariableReference) expression);
-        } else if (expression instanceof Operation) {
-            return checkOperation((Operation) expression);
+        if (expression == null) {
+            return ExpressionType.UNDEFINED;
         }
+        ExpressionType type = expression.accept(this);
+        expression.setType(type);
+        return type;
+    }
 
-        return ExpressionType.UNDEFINED;
+    // Literals have a fixed type
+    @Override
+    public ExpressionType visitPixelLiteral(PixelLiteral literal) {
+        return ExpressionType.PIXEL;
+    }
+
+    @Override
+    public ExpressionType visitPercentageLiteral(PercentageLiteral literal) {
+        return ExpressionType.PERCENTAGE;
+    }
+
+    @Override
+    public ExpressionType visitColorLiteral(ColorLiteral literal) {
+        return ExpressionType.COLOR;
+    }
+
+    @Override
+    public ExpressionType visitScalarLiteral(ScalarLiteral literal) {
+        return ExpressionType.SCALAR;
+    }
+
+    @Override
+    public ExpressionType visitBoolLiteral(BoolLiteral literal) {
+        return ExpressionType.BOOL;
     }
 
     // Checks if a variable is defined and returns its type
-    private ExpressionType checkVariableReference(VariableReference reference) {
+    @Override
+    public ExpressionType visitVariableReference(VariableReference reference) {
         // Get the variable name
         String varName = reference.name;
 
-        // Search through scopes from innermost to outermost
-        for (int i = 0; i < variableTypes.getSize(); i++) {
-            HashMap<String, ExpressionType> scope = variableTypes.get(i);
-            if (scope.containsKey(varName)) {
-                return scope.get(varName);
-            }
+        // Innermost binding shadows outer ones
+        VariableAssignment assignment = variables.get(varName);
+        if (assignment == null) {
+            assignment = globalAssignments.get(varName);
         }
+        if (assignment != null) {
+            reference.setDeclaration(assignment);
+            return assignment.name.getType();
+        }
+        reference.setDeclaration(null);
 
         // Variable not found in any scope
-        reference.setError("Variable " + varName + " is not defined");
+        return undefinedVariable(reference);
+    }
+
+    // Marks a reference to a variable that is not in scope
+    public static ExpressionType undefinedVariable(VariableReference reference) {
+        reference.setError("Variable " + reference.name + " is not defined");
         return ExpressionType.UNDEFINED;
     }
 
-    // Checks operations for type compatibility
-    private ExpressionType checkOperation(Operation operation) {
-        // Get types of left and right operands
-        ExpressionType leftType = getExpressionType(operation.lhs);
-        ExpressionType rightType = getExpressionType(operation.rhs);
+    @Override
+    public ExpressionType visitAddOperation(AddOperation operation) {
+        return checkAddOrSubtract(operation);
+    }
 
-        // Check addition and subtraction operations
-        if (operation instanceof AddOperation || operation instanceof SubtractOperation) {
-            // Check if operands are of same type for + and -
-            if (leftType != rightType) {
-                operation.setError("Operands of addition/subtraction must be of the same type");
-                return ExpressionType.UNDEFINED;
-            }
+    @Override
+    public ExpressionType visitSubtractOperation(SubtractOperation operation) {
+        return checkAddOrSubtract(operation);
+    }
 
-            // Check if colors are used in operations
-            if (leftType == ExpressionType.COLOR) {
-                operation.setError("Colors cannot be used in operations");
-                return ExpressionType.UNDEFINED;
-            }
+    // Check addition and subtraction operations
+    private ExpressionType checkAddOrSubtract(Operation operation) {
+        return addOrSubtractType(operation, getExpressionType(operation.lhs), getExpressionType(operation.rhs));
+    }
 
-            return leftType;
+    // Type of an addition or subtraction of operands of leftType and rightType
+    public static ExpressionType addOrSubtractType(Operation operation, ExpressionType leftType, ExpressionType rightType) {
+        // Check if operands are of same type for + and -
+        if (leftType != rightType) {
+            operation.setError("Operands of addition/subtraction must be of the same type");
+            return ExpressionType.UNDEFINED;
+        }
 
-        // Check multiplication operations
-        } else if (operation instanceof MultiplyOperation) {
-            // Check if at least one operand is scalar for multiplication
-            if (leftType != ExpressionType.SCALAR && rightType != ExpressionType.SCALAR) {
-                operation.setError("At least one operand of multiplication must be a scalar");
-                return ExpressionType.UNDEFINED;
-            }
+        // Check if colors are used in operations
+        if (leftType == ExpressionType.COLOR) {
+            operation.setError("Colors cannot be used in operations");
+            return ExpressionType.UNDEFINED;
+        }
 
-            // Check if colors are used in operations
-            if (leftType == ExpressionType.COLOR || rightType == ExpressionType.COLOR) {
-                operation.setError("Colors cannot be used in operations");
-                return ExpressionType.UNDEFINED;
-            }
+        return leftType;
+    }
 
-            // Return non-scalar type, or scalar if both are scalar
-            if (leftType == ExpressionType.SCALAR) {
-                return rightType;
-            } else {
-                return leftType;
-            }
+    // Check multiplication operations
+    @Override
+    public ExpressionType visitMultiplyOperation(MultiplyOperation operation) {
+        return checkMultiplyOrDivide(operation, "multiplication");
+    }
 
-        // Check division operations
-        } else if (operation instanceof DivideOperation) {
-            // Check if at least one operand is scalar for division
-            if (leftType != ExpressionType.SCALAR && rightType != ExpressionType.SCALAR) {
-                operation.setError("At least one operand of division must be a scalar");
-                return ExpressionType.UNDEFINED;
-            }
+    // Check division operations
+    @Override
+    public ExpressionType visitDivideOperation(DivideOperation operation) {
+        return checkMultiplyOrDivide(operation, "division");
+    }
 
-            // Check if colors are used in operations
-            if (leftType == ExpressionType.COLOR || rightType == ExpressionType.COLOR) {
-                operation.setError("Colors cannot be used in operations");
-                return ExpressionType.UNDEFINED;
-            }
+    private ExpressionType checkMultiplyOrDivide(Operation operation, String operationName) {
+        return multiplyOrDivideType(operation, operationName,
+                getExpressionType(operation.lhs), getExpressionType(operation.rhs));
+    }
 
-            // Return non-scalar type, or scalar if both are scalar
-            if (leftType == ExpressionType.SCALAR) {
-                return rightType;
-            } else {
-                return leftType;
-            }
+    // Type of a multiplication or division of operands of leftType and rightType
+    public static ExpressionType multiplyOrDivideType(Operation operation, String operationName,
+                                                      ExpressionType leftType, ExpressionType rightType) {
+        // Check if at least one operand is scalar
+        if (leftType != ExpressionType.SCALAR && rightType != ExpressionType.SCALAR) {
+            operation.setError("At least one operand of " + operationName + " must be a scalar");
+            return ExpressionType.UNDEFINED;
+        }
+
+        // Check if colors are used in operations
+        if (leftType == ExpressionType.COLOR || rightType == ExpressionType.COLOR) {
+            operation.setError("Colors cannot be used in operations");
+            return ExpressionType.UNDEFINED;
         }
+
+        // Return non-scalar type, or scalar if both are scalar
+        if (leftType == ExpressionType.SCALAR) {
+            return rightType;
+        } else {
+            return leftType;
+        }
+    }
+
+    // Anything else, e.g. a selector, has no type
+    @Override
+    protected ExpressionType defaultResult() {
         return ExpressionType.UNDEFINED;
     }
 }
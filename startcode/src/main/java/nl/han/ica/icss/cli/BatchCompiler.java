@@ -0,0 +1,198 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.parser.ICSSParserFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that compiles every .icss file below a directory and writes the .css next to it.
+ * Files are spread over a work-stealing pool, every worker thread owns its own Pipeline.
+ *
+ * With --watch the compiler keeps running and recompiles the tree every interval. Only files whose content
+ * changed are compiled again, everything else is served from the CompileService cache.
+ *
+ * Usage: BatchCompiler <directory> [--threads n] [--watch seconds]
+ */
+public class BatchCompiler {
+
+    private static final String INPUT_EXTENSION = ".icss";
+    private static final String OUTPUT_EXTENSION = ".css";
+
+    // Below this many files a task compiles its files itself instead of splitting further
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private final ForkJoinPool pool;
+    // Caches outputs by source hash and owns one Pipeline per worker thread
+    private final CompileService service = new CompileService();
+
+    public BatchCompiler(int threads) {
+        pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BatchCompiler <directory> [--threads n] [--watch seconds]");
+            System.exit(2);
+        }
+        Path root = Paths.get(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int watchSeconds = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--watch") && i + 1 < args.length) {
+                watchSeconds = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Unknown argument: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        BatchCompiler compiler = new BatchCompiler(threads);
+        if (watchSeconds > 0) {
+            compiler.watch(root, watchSeconds);
+            return;
+        }
+        long start = System.nanoTime();
+        List<CompileResult> results = compiler.compileTree(root);
+        long wallNanos = System.nanoTime() - start;
+        compiler.shutdown();
+
+        compiler.printSummary(results, wallNanos, threads);
+        boolean failed = results.stream().anyMatch(result -> !result.isSuccess());
+        System.exit(failed ? 1 : 0);
+    }
+
+    // Recompiles the tree every interval until the process is killed, the JVM and the cache stay warm in between
+    public void watch(Path root, int intervalSeconds) throws IOException {
+        while (true) {
+            long start = System.nanoTime();
+            List<CompileResult> results = compileTree(root);
+            long wallNanos = System.nanoTime() - start;
+            printSummary(results, wallNanos, pool.getParallelism());
+            try {
+                Thread.sleep(intervalSeconds * 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shutdown();
+                return;
+            }
+        }
+    }
+
+    // Finds all .icss files below root and compiles them in parallel
+    public List<CompileResult> compileTree(Path root) throws IOException {
+        List<Path> inputs;
+        try (Stream<Path> paths = Files.walk(root)) {
+            inputs = paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(INPUT_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        return compileAll(inputs);
+    }
+
+    // Compiles the given files on the pool, results are returned in the order of the input list
+    public List<CompileResult> compileAll(List<Path> inputs) {
+        return pool.invoke(new CompileTask(inputs));
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public CompileService getService() {
+        return service;
+    }
+
+    // Compiles one file through the cache and writes the output next to the input
+    CompileResult compileFile(Path input) {
+        return service.compile(input);
+    }
+
+    // foo/bar.icss -> foo/bar.css
+    static Path outputPathFor(Path input) {
+        String name = input.getFileName().toString();
+        String base = name.substring(0, name.length() - INPUT_EXTENSION.length());
+        return input.resolveSibling(base + OUTPUT_EXTENSION);
+    }
+
+    private void printSummary(List<CompileResult> results, long wallNanos, int threads) {
+        long parse = 0, check = 0, transform = 0, generate = 0;
+        int failed = 0, cached = 0, fallbacks = 0;
+        for (CompileResult result : results) {
+            if (result.cached) {
+                cached++;
+            }
+            if (result.llFallback) {
+                fallbacks++;
+            }
+            parse += result.parseNanos;
+            check += result.checkNanos;
+            transform += result.transformNanos;
+            generate += result.generateNanos;
+            if (!result.isSuccess()) {
+                failed++;
+                for (String error : result.errors) {
+                    System.err.println(result.input + ": " + error);
+                }
+            }
+        }
+        System.out.println("Compiled " + results.size() + " file(s) on " + threads + " thread(s): "
+                + (results.size() - failed) + " succeeded, " + failed + " failed, " + cached + " from cache");
+        System.out.println("Wall time:       " + millis(wallNanos) + " ms");
+        System.out.println("Parse (cpu):     " + millis(parse) + " ms, " + fallbacks + " of "
+                + (results.size() - cached) + " parse(s) fell back from SLL to LL");
+        System.out.println("Check (cpu):     " + millis(check) + " ms");
+        System.out.println("Transform (cpu): " + millis(transform) + " ms");
+        System.out.println("Generate (cpu):  " + millis(generate) + " ms");
+        System.out.println("Cache:           " + service.getHits() + " hit(s), " + service.getMisses()
+                + " miss(es), " + service.getCacheSize() + " entries");
+        System.out.println("Parser cache:    " + ICSSParserFactory.shared().getCacheSize() + " DFA states and contexts");
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    // Splits the file list in halves until it is small enough, idle workers steal the other halves
+    private class CompileTask extends RecursiveTask<List<CompileResult>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> inputs;
+
+        CompileTask(List<Path> inputs) {
+            this.inputs = inputs;
+        }
+
+        @Override
+        protected List<CompileResult> compute() {
+            if (inputs.size() <= SEQUENTIAL_THRESHOLD) {
+                List<CompileResult> results = new ArrayList<>(inputs.size());
+                for (Path input : inputs) {
+                    results.add(compileFile(input));
+                }
+                return results;
+            }
+            int middle = inputs.size() / 2;
+            CompileTask left = new CompileTask(inputs.subList(0, middle));
+            CompileTask right = new CompileTask(inputs.subList(middle, inputs.size()));
+            left.fork();
+            List<CompileResult> results = new ArrayList<>(inputs.size());
+            List<CompileResult> rightResults = right.compute();
+            results.addAll(left.join());
+            results.addAll(rightResults);
+            return results;
+        }
+    }
+}
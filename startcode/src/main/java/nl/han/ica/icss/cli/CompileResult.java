@@ -0,0 +1,37 @@
+package nl.han.ica.icss.cli;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of compiling a single ICSS file: where it came from, where the CSS went and how long every stage took.
+ */
+public class CompileResult {
+
+    public final Path input;
+    public Path output;
+    public final List<String> errors = new ArrayList<>();
+    // True when the output came from the CompileService cache and no stage ran
+    public boolean cached;
+    // True when the SLL parse failed and the file was parsed again in full LL mode
+    public boolean llFallback;
+
+    // Time spent in each stage, in nanoseconds
+    public long parseNanos;
+    public long checkNanos;
+    public long transformNanos;
+    public long generateNanos;
+
+    public CompileResult(Path input) {
+        this.input = input;
+    }
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+
+    public long getTotalNanos() {
+        return parseNanos + checkNanos + transformNanos + generateNanos;
+    }
+}
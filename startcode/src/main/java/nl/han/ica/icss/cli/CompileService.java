@@ -0,0 +1,173 @@
+package nl.han.ica.icss.cli;
+
+import com.google.common.hash.Hashing;
+import nl.han.ica.icss.Pipeline;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived compiler that remembers the outcome of every source it has seen, keyed by a SHA-256 hash of the source.
+ * Unchanged files are served from the cache and their output is not rewritten. An output stays cached as long as
+ * some input last had that source, so files with the same content share one entry.
+ * Safe to use from multiple threads, every thread compiles with its own Pipeline. Threads that ask for the same
+ * source at the same time wait for the one that compiles it.
+ */
+public class CompileService {
+
+    private final ConcurrentHashMap<String, CachedOutputEntry> outputs = new ConcurrentHashMap<>();
+    // Hash of the source that was last written for each input, used to skip rewriting unchanged outputs
+    private final ConcurrentHashMap<Path, String> lastHashes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Pipeline> pipelines = ThreadLocal.withInitial(Pipeline::new);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Compiles one file and writes the .css next to it, using the cache when the source did not change
+    public CompileResult compile(Path input) {
+        CompileResult result = new CompileResult(input);
+        try {
+            byte[] source = Files.readAllBytes(input);
+            String hash = Hashing.sha256().hashBytes(source).toString();
+
+            // Finding or adding the entry and counting this input as a user is one step, so a concurrent release
+            // can never drop an entry between the lookup and the count
+            String previousHash = lastHashes.put(input, hash);
+            boolean newUser = !hash.equals(previousHash);
+            CompletableFuture<CachedOutput> compiled = new CompletableFuture<>();
+            CachedOutputEntry entry = outputs.compute(hash, (key, existing) -> {
+                CachedOutputEntry claimed = existing != null ? existing : new CachedOutputEntry(compiled);
+                if (newUser || existing == null) {
+                    claimed.users++;
+                }
+                return claimed;
+            });
+            if (newUser) {
+                release(previousHash);
+            }
+
+            if (entry.output == compiled) {
+                // This thread added the entry, so it compiles the source. Others with the same source wait for it
+                misses.incrementAndGet();
+                try {
+                    compiled.complete(compileSource(new String(source, StandardCharsets.UTF_8), result));
+                } catch (RuntimeException e) {
+                    compiled.completeExceptionally(e);
+                }
+            } else {
+                hits.incrementAndGet();
+                result.cached = true;
+            }
+            CachedOutput cached = entry.output.join();
+
+            result.errors.addAll(cached.errors);
+            if (!result.isSuccess()) {
+                // An output of an earlier version would look like the output of this one
+                Files.deleteIfExists(BatchCompiler.outputPathFor(input));
+            } else {
+                result.output = BatchCompiler.outputPathFor(input);
+                if (!hash.equals(previousHash) || !Files.exists(result.output)) {
+                    // Encode while writing instead of copying the whole output into a byte array first
+                    try (Writer writer = Files.newBufferedWriter(result.output, StandardCharsets.UTF_8)) {
+                        writer.write(cached.css);
+                    }
+                }
+            }
+        } catch (CompletionException e) {
+            // Compiling failed in whichever thread compiled this source
+            release(lastHashes.remove(input));
+            result.errors.add(e.getCause().toString());
+        } catch (IOException | RuntimeException e) {
+            release(lastHashes.remove(input));
+            result.errors.add(e.toString());
+        }
+        return result;
+    }
+
+    // An input no longer has the source of hash, its output is forgotten when no other input has that source
+    private void release(String hash) {
+        if (hash != null) {
+            outputs.computeIfPresent(hash, (key, entry) -> --entry.users > 0 ? entry : null);
+        }
+    }
+
+    // Runs the whole pipeline over a source string, stage timings are recorded in result
+    private CachedOutput compileSource(String source, CompileResult result) {
+        Pipeline pipeline = pipelines.get();
+
+        long start = System.nanoTime();
+        pipeline.parseString(source);
+        result.parseNanos = System.nanoTime() - start;
+        result.llFallback = pipeline.isLlFallback();
+        if (!pipeline.isParsed()) {
+            return new CachedOutput(null, pipeline.getErrors());
+        }
+
+        start = System.nanoTime();
+        boolean checked = pipeline.check();
+        result.checkNanos = System.nanoTime() - start;
+        if (!checked) {
+            return new CachedOutput(null, pipeline.getErrors());
+        }
+
+        start = System.nanoTime();
+        pipeline.transform();
+        result.transformNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        String css = pipeline.generate();
+        result.generateNanos = System.nanoTime() - start;
+
+        return new CachedOutput(css, Collections.emptyList());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getCacheSize() {
+        return outputs.size();
+    }
+
+    // Forgets all cached outputs, the next compile of every file is a miss
+    public void clear() {
+        outputs.clear();
+        lastHashes.clear();
+    }
+
+    private static class CachedOutput {
+        final String css;
+        final List<String> errors;
+
+        CachedOutput(String css, List<String> errors) {
+            this.css = css;
+            // Pipeline reuses its error list between runs, so take a copy
+            this.errors = new ArrayList<>(errors);
+        }
+    }
+
+    // Output of one source, completed by the thread that compiles it, and the inputs that last had that source
+    private static class CachedOutputEntry {
+        final CompletableFuture<CachedOutput> output;
+        // Only changed inside the compute functions of outputs
+        int users;
+
+        CachedOutputEntry(CompletableFuture<CachedOutput> output) {
+            this.output = output;
+        }
+    }
+}
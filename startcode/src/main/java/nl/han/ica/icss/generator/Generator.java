@@ -5,113 +5,244 @@ import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.selectors.ClassSelector;
 import nl.han.ica.icss.ast.selectors.IdSelector;
 import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.transforms.ResolvedRule;
+import nl.han.ica.icss.transforms.ResolvedStylesheet;
 
-public class Generator {
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Visits the transformed AST and appends the CSS text of every node
+public class Generator extends ASTBaseVisitor<Void> {
+
+	// When streaming, the buffer is written out once it holds at least this many characters
+	private static final int FLUSH_THRESHOLD = 8192;
+
+	// CSS output of the current stylerules, or of everything when not streaming
+	private StringBuilder sb;
+	// Destination when streaming, null when generating a string
+	private Writer writer;
+	// Reused between streaming calls, and to copy the buffer to the writer without creating a String
+	private StringBuilder streamBuffer;
+	private char[] chars;
 
 	// Generates output CSS string from the AST
 	public String generate(AST ast) {
 		// Create string builder for CSS output
-		StringBuilder sb = new StringBuilder();
+		sb = new StringBuilder();
+		writer = null;
 		// Generate the stylesheet
-		generateStylesheet(ast.root, sb);
+		ast.root.accept(this);
 		// Returns the CSS as string
 		return sb.toString();
 	}
 
+	// Generates the CSS of an evaluated stylesheet, the same as for the AST it was resolved from
+	public String generate(ResolvedStylesheet stylesheet) {
+		sb = new StringBuilder();
+		writer = null;
+		for (ResolvedRule rule : stylesheet) {
+			if (rule.getSelector() != null) {
+				rule.getSelector().accept(this);
+			}
+			sb.append(" {\n");
+			for (int i = 0; i < rule.getDeclarationCount(); i++) {
+				sb.append("  ").append(rule.getProperty(i)).append(": ");
+				if (rule.getValue(i) != null) {
+					rule.getValue(i).accept(this);
+				}
+				sb.append(";\n");
+			}
+			sb.append("}\n\n");
+		}
+		return sb.toString();
+	}
+
+	// Streams the CSS to a writer, only a few stylerules are buffered at a time. The writer is neither flushed nor closed,
+	// so it can be called once per stylerule on the same writer
+	public void generate(AST ast, Writer out) throws IOException {
+		// The streaming buffers are kept between calls
+		if (streamBuffer == null) {
+			streamBuffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+			chars = new char[FLUSH_THRESHOLD * 2];
+		}
+		sb = streamBuffer;
+		sb.setLength(0);
+		writer = out;
+		try {
+			ast.root.accept(this);
+			flush(0);
+		} catch (UncheckedIOException e) {
+			// Visit methods cannot throw IOException, so it is wrapped on the way out
+			throw e.getCause();
+		} finally {
+			writer = null;
+		}
+	}
+
+	// Streams the CSS as UTF-8 to an output stream, the stream is flushed, not closed
+	public void generate(AST ast, OutputStream out) throws IOException {
+		Writer encoder = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		generate(ast, encoder);
+		encoder.flush();
+	}
+
+	// Streams the CSS as UTF-8 to a channel, the channel is not closed
+	public void generate(AST ast, WritableByteChannel channel) throws IOException {
+		Writer encoder = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), FLUSH_THRESHOLD);
+		generate(ast, encoder);
+		encoder.flush();
+	}
+
+	// Writes the buffer to the writer once it holds at least threshold characters
+	private void flush(int threshold) {
+		if (writer == null || sb.length() < threshold || sb.length() == 0) {
+			return;
+		}
+		int length = sb.length();
+		if (chars.length < length) {
+			chars = new char[length];
+		}
+		sb.getChars(0, length, chars, 0);
+		sb.setLength(0);
+		try {
+			writer.write(chars, 0, length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	// Generates CSS for all stylerules in the stylesheet
-	// Loops through all children of the stylesheet and generates CSS for each stylerule
-	private void generateStylesheet(Stylesheet stylesheet, StringBuilder sb) {
+	// Loops through all children of the stylesheet, only stylerules produce output
+	@Override
+	public Void visitStylesheet(Stylesheet stylesheet) {
 		// Loop through all children
-		for (ASTNode child : stylesheet.getChildren()) {
+		for (int i = 0; i < stylesheet.getChildCount(); i++) {
+			ASTNode child = stylesheet.getChild(i);
 			// Ignore non stylerules
 			if (child instanceof Stylerule) {
 				// Generate CSS for the stylerule
-				generateStylerule((Stylerule) child, sb);
+				child.accept(this);
+				// Hand finished stylerules to the writer when streaming
+				flush(FLUSH_THRESHOLD);
 			}
 		}
+		return null;
 	}
 
 	// Generates CSS for a single stylerule
-	// Loops through children to find selector and declarations
-	private void generateStylerule(Stylerule stylerule, StringBuilder sb) {
+	// Uses the first selector and the declarations in the body
+	@Override
+	public Void visitStylerule(Stylerule stylerule) {
 		// Generate selector first
-		for (ASTNode child : stylerule.getChildren()) {
-			// Find the child node that is a selector
-			if (child instanceof Selector) {
-				// Generate the selector text (tag, id, or class)
-				generateSelector((Selector) child, sb);
-				break;
-			}
+		if (!stylerule.selectors.isEmpty()) {
+			// Generate the selector text (tag, id, or class)
+			stylerule.selectors.get(0).accept(this);
 		}
 
 		// Add opening brace
 		sb.append(" {\n");
 
 		// Generate all declarations
-		for (ASTNode child : stylerule.getChildren()) {
+		for (ASTNode child : stylerule.body) {
 			// Find the child nodes that are declarations
 			if (child instanceof Declaration) {
 				// Generate the declaration text
-				generateDeclaration((Declaration) child, sb, 1);
+				child.accept(this);
 			}
 		}
 
 		// Add closing brace and newlines
 		sb.append("}\n\n");
+		return null;
 	}
 
-	// Generates the selector text (tag, id, or class)
-	// Loops through possible selector types and appends the right string
-	private void generateSelector(Selector selector, StringBuilder sb) {
-		// Check what type of selector and append the text
-		if (selector instanceof TagSelector) {
-			// Tag selector (eg. div, p)
-			sb.append(((TagSelector) selector).tag);
-		} else if (selector instanceof IdSelector) {
-			// ID selector (eg. #header)
-			sb.append(((IdSelector) selector).id);
-		} else if (selector instanceof ClassSelector) {
-			// Class selector (eg. .container)
-			sb.append(((ClassSelector) selector).cls);
-		}
+	// Tag selector (eg. div, p)
+	@Override
+	public Void visitTagSelector(TagSelector selector) {
+		sb.append(selector.tag);
+		return null;
 	}
 
-	// Generates a CSS declaration with proper indentation
-	// Loops through indentation levels and appends property and value
-	private void generateDeclaration(Declaration declaration, StringBuilder sb, int indentLevel) {
-		// Add indentation (2 spaces per level)
-		for (int i = 0; i < indentLevel; i++) {
-			sb.append("  ");
-		}
+	// ID selector (eg. #header)
+	@Override
+	public Void visitIdSelector(IdSelector selector) {
+		sb.append(selector.id);
+		return null;
+	}
+
+	// Class selector (eg. .container)
+	@Override
+	public Void visitClassSelector(ClassSelector selector) {
+		sb.append(selector.cls);
+		return null;
+	}
+
+	// Generates a CSS declaration with one level of indentation (2 spaces)
+	@Override
+	public Void visitDeclaration(Declaration declaration) {
+		sb.append("  ");
 
 		// Add property name, followed by a colon and space
 		sb.append(declaration.property.name);
 		sb.append(": ");
-		// Add value from expression
-		generateExpression(declaration.expression, sb);
+		// Add value from expression (should be a literal after transformation), nothing when it is missing
+		if (declaration.expression != null) {
+			declaration.expression.accept(this);
+		}
 		// Add semicolon and newline
 		sb.append(";\n");
+		return null;
 	}
 
-	// Generates the CSS value from an expression (should be a literal after transformation)
-	// Checks the type of literal and appends the correct format
-	private void generateExpression(Expression expression, StringBuilder sb) {
-		// Check type and format accordingly
-		if (expression instanceof PixelLiteral) {
-			// Pixel value (eg. 10px)
-			sb.append(((PixelLiteral) expression).value).append("px");
-		} else if (expression instanceof PercentageLiteral) {
-			// Percentage value (eg. 50%)
-			sb.append(((PercentageLiteral) expression).value).append("%");
-		} else if (expression instanceof ColorLiteral) {
-			// Color value (eg. #FF0000)
-			sb.append(((ColorLiteral) expression).value);
-		} else if (expression instanceof ScalarLiteral) {
-			// Scalar value (eg. 42)
-			sb.append(((ScalarLiteral) expression).value);
-		} else if (expression instanceof BoolLiteral) {
-			// Boolean value
-			sb.append(((BoolLiteral) expression).value ? "TRUE" : "FALSE");
+	// A reference that was not evaluated, e.g. in an AST that is only checked. Prints the literal of the assignment
+	// the Checker resolved it to, like the Evaluator would, and nothing when that value still has to be computed
+	@Override
+	public Void visitVariableReference(VariableReference reference) {
+		VariableAssignment declaration = reference.getDeclaration();
+		if (declaration != null && declaration.expression instanceof Literal) {
+			declaration.expression.accept(this);
 		}
+		return null;
+	}
+
+	// Pixel value (eg. 10px)
+	@Override
+	public Void visitPixelLiteral(PixelLiteral literal) {
+		sb.append(literal.value).append("px");
+		return null;
+	}
+
+	// Percentage value (eg. 50%)
+	@Override
+	public Void visitPercentageLiteral(PercentageLiteral literal) {
+		sb.append(literal.value).append("%");
+		return null;
+	}
+
+	// Color value (eg. #FF0000)
+	@Override
+	public Void visitColorLiteral(ColorLiteral literal) {
+		sb.append(literal.value);
+		return null;
+	}
+
+	// Scalar value (eg. 42)
+	@Override
+	public Void visitScalarLiteral(ScalarLiteral literal) {
+		sb.append(literal.value);
+		return null;
+	}
+
+	// Boolean value
+	@Override
+	public Void visitBoolLiteral(BoolLiteral literal) {
+		sb.append(literal.value ? "TRUE" : "FALSE");
+		return null;
 	}
 }
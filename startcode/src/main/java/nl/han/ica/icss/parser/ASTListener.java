@@ -1,6 +1,6 @@
 package nl.han.ica.icss.parser;
 
-import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.HANArrayStack;
 import nl.han.ica.datastructures.IHANStack;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
@@ -24,8 +24,13 @@ public class ASTListener extends ICSSBaseListener {
     private final IHANStack<ASTNode> currentContainer;
 
     public ASTListener() {
+        this(new HANArrayStack<>());
+    }
+
+    // The stack is pushed and popped for every parse tree node, so it is replaceable for benchmarking
+    public ASTListener(IHANStack<ASTNode> currentContainer) {
         ast = new AST();
-        currentContainer = new HANStack<>();
+        this.currentContainer = currentContainer;
     }
 
     public AST getAST() {
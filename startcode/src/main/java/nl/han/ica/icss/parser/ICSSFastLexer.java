@@ -0,0 +1,454 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written lexer for the tokens of ICSS.g4, producing the same token types as the generated ICSSLexer.
+ * The whole input is lexed up front into a compact int array, tokens are only created when the parser asks for them.
+ *
+ * This is a fast path for input without lexer errors: {@link #lex(String)} returns null when the input contains
+ * anything the grammar cannot tokenize, so the caller can fall back to ICSSLexer for its error reporting.
+ */
+public class ICSSFastLexer implements TokenSource {
+
+    // Character classes, only ASCII is handled by the fast path
+    private static final byte OTHER = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte LOWER = 3;
+    private static final byte UPPER = 4;
+    private static final byte SINGLE = 5;
+    private static final byte HASH = 6;
+    private static final byte DOT = 7;
+    private static final byte SLASH = 8;
+    private static final byte COLON = 9;
+
+    private static final byte[] CHAR_CLASS = new byte[128];
+    // Token type of the characters that are a token on their own
+    private static final int[] SINGLE_TOKEN = new int[128];
+
+    static {
+        CHAR_CLASS[' '] = CHAR_CLASS['\t'] = CHAR_CLASS['\r'] = CHAR_CLASS['\n'] = WHITESPACE;
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASS[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASS[c] = LOWER;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CHAR_CLASS[c] = UPPER;
+        }
+        CHAR_CLASS['#'] = HASH;
+        CHAR_CLASS['.'] = DOT;
+        CHAR_CLASS['/'] = SLASH;
+        CHAR_CLASS[':'] = COLON;
+        single('[', ICSSLexer.BOX_BRACKET_OPEN);
+        single(']', ICSSLexer.BOX_BRACKET_CLOSE);
+        single('{', ICSSLexer.OPEN_BRACE);
+        single('}', ICSSLexer.CLOSE_BRACE);
+        single(';', ICSSLexer.SEMICOLON);
+        single('+', ICSSLexer.PLUS);
+        single('-', ICSSLexer.MIN);
+        single('*', ICSSLexer.MUL);
+    }
+
+    private static void single(char c, int type) {
+        CHAR_CLASS[c] = SINGLE;
+        SINGLE_TOKEN[c] = type;
+    }
+
+    // Every token takes two ints in the buffer, its start and stop index, and a byte for its type.
+    // Line and position in line are derived from the start index and the start of every line
+    private final String input;
+    private int[] buffer;
+    private byte[] types;
+    private int count;
+    private int[] lineStarts = new int[64];
+    private int lines = 1;
+
+    // Index of the next token handed to the parser, and the line it is on
+    private int next;
+    private int nextLine;
+
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private final Pair<TokenSource, CharStream> source = new Pair<>(this, null);
+
+    private ICSSFastLexer(String input) {
+        this.input = input;
+        // Roughly one token per four characters of real stylesheets
+        int capacity = Math.max(16, input.length() / 4);
+        buffer = new int[capacity * 2];
+        types = new byte[capacity];
+    }
+
+    // Lexes the whole input, returns null when the input has a lexer error
+    public static ICSSFastLexer lex(String input) {
+        ICSSFastLexer lexer = new ICSSFastLexer(input);
+        return lexer.tokenize() ? lexer : null;
+    }
+
+    // Number of tokens including EOF
+    public int getTokenCount() {
+        return count;
+    }
+
+    public int getTokenType(int index) {
+        return types[index];
+    }
+
+    public String getTokenText(int index) {
+        return types[index] == Token.EOF ? "<EOF>" : input.substring(buffer[index * 2], buffer[index * 2 + 1] + 1);
+    }
+
+    public int getTokenLine(int index) {
+        int line = Arrays.binarySearch(lineStarts, 0, lines, buffer[index * 2]);
+        // Not a line start itself, then it is on the line of the insertion point before it
+        return line >= 0 ? line + 1 : -line - 1;
+    }
+
+    public int getTokenCharPositionInLine(int index) {
+        return buffer[index * 2] - lineStarts[getTokenLine(index) - 1];
+    }
+
+    private boolean tokenize() {
+        String s = input;
+        int length = s.length();
+        int i = 0;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c >= 128) {
+                return false;
+            }
+            int start = i;
+            switch (CHAR_CLASS[c]) {
+                case WHITESPACE:
+                    if (c == '\n') {
+                        newLine(i + 1);
+                    }
+                    i++;
+                    continue;
+                case SINGLE:
+                    i++;
+                    add(SINGLE_TOKEN[c], start, i);
+                    continue;
+                case COLON:
+                    if (i + 1 < length && s.charAt(i + 1) == '=') {
+                        i += 2;
+                        add(ICSSLexer.ASSIGNMENT_OPERATOR, start, i);
+                    } else {
+                        i++;
+                        add(ICSSLexer.COLON, start, i);
+                    }
+                    continue;
+                case SLASH:
+                    i = slash(i);
+                    if (i < 0) {
+                        return false;
+                    }
+                    continue;
+                case DIGIT:
+                    i = number(i);
+                    continue;
+                case LOWER:
+                    i = scan(i + 1, LOWER_IDENT_PART);
+                    add(lowerType(start, i), start, i);
+                    continue;
+                case UPPER:
+                    i = scan(i + 1, CAPITAL_IDENT_PART);
+                    add(capitalType(start, i), start, i);
+                    continue;
+                case HASH:
+                    i = hash(i);
+                    if (i < 0) {
+                        return false;
+                    }
+                    continue;
+                case DOT:
+                    i = identEnd(i + 1);
+                    if (i < 0) {
+                        return false;
+                    }
+                    add(ICSSLexer.CLASS_IDENT, start, i);
+                    continue;
+                default:
+                    return false;
+            }
+        }
+        // EOF has an empty range at the end of the input
+        add(Token.EOF, length, length);
+        return true;
+    }
+
+    // Comments are skipped, a '/' that starts neither comment is a DIV
+    private int slash(int i) {
+        String s = input;
+        int length = s.length();
+        if (i + 1 < length && s.charAt(i + 1) == '/') {
+            int end = i + 2;
+            while (end < length && s.charAt(end) != '\r' && s.charAt(end) != '\n') {
+                if (Character.isSurrogate(s.charAt(end))) {
+                    return -1;
+                }
+                end++;
+            }
+            return end;
+        }
+        if (i + 1 < length && s.charAt(i + 1) == '*') {
+            int close = s.indexOf("*/", i + 2);
+            // Without a closing */ the longest match ICSSLexer finds is the '/' itself
+            if (close >= 0) {
+                for (int j = i + 2; j < close; j++) {
+                    char c = s.charAt(j);
+                    // ICSSLexer counts code points, so surrogate pairs would shift the token positions
+                    if (Character.isSurrogate(c)) {
+                        return -1;
+                    }
+                    if (c == '\n') {
+                        newLine(j + 1);
+                    }
+                }
+                return close + 2;
+            }
+        }
+        add(ICSSLexer.DIV, i, i + 1);
+        return i + 1;
+    }
+
+    // PIXELSIZE, PERCENTAGE or SCALAR
+    private int number(int i) {
+        int end = scan(i, DIGITS);
+        String s = input;
+        if (end + 1 < s.length() && s.charAt(end) == 'p' && s.charAt(end + 1) == 'x') {
+            add(ICSSLexer.PIXELSIZE, i, end + 2);
+            return end + 2;
+        }
+        if (end < s.length() && s.charAt(end) == '%') {
+            add(ICSSLexer.PERCENTAGE, i, end + 1);
+            return end + 1;
+        }
+        add(ICSSLexer.SCALAR, i, end);
+        return end;
+    }
+
+    // COLOR or ID_IDENT, the longest match wins and COLOR wins a tie because it comes first in the grammar
+    private int hash(int i) {
+        String s = input;
+        int colorEnd = -1;
+        if (i + 7 <= s.length()) {
+            colorEnd = i + 7;
+            for (int j = i + 1; j < i + 7; j++) {
+                if (!isHex(s.charAt(j))) {
+                    colorEnd = -1;
+                    break;
+                }
+            }
+        }
+        int idEnd = identEnd(i + 1);
+        if (colorEnd < 0 && idEnd < 0) {
+            return -1;
+        }
+        if (colorEnd >= idEnd) {
+            add(ICSSLexer.COLOR, i, colorEnd);
+            return colorEnd;
+        }
+        add(ICSSLexer.ID_IDENT, i, idEnd);
+        return idEnd;
+    }
+
+    // End of IDENT_START IDENT_PART* ( '-'+ IDENT_PART+ )* starting at i, or -1 when there is no IDENT_START
+    private int identEnd(int i) {
+        String s = input;
+        int length = s.length();
+        if (i >= length || s.charAt(i) < 'a' || s.charAt(i) > 'z') {
+            return -1;
+        }
+        int end = scan(i + 1, IDENT_PART);
+        while (end < length && s.charAt(end) == '-') {
+            int hyphens = end;
+            while (hyphens < length && s.charAt(hyphens) == '-') {
+                hyphens++;
+            }
+            int partEnd = scan(hyphens, IDENT_PART);
+            // Trailing hyphens are not part of the identifier
+            if (partEnd == hyphens) {
+                break;
+            }
+            end = partEnd;
+        }
+        return end;
+    }
+
+    // Character sets used while scanning
+    private static final int DIGITS = 0;
+    private static final int IDENT_PART = 1;
+    private static final int LOWER_IDENT_PART = 2;
+    private static final int CAPITAL_IDENT_PART = 3;
+
+    // Returns the end of the run of characters from set starting at i
+    private int scan(int i, int set) {
+        String s = input;
+        int length = s.length();
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c >= 128) {
+                break;
+            }
+            byte charClass = CHAR_CLASS[c];
+            boolean matches;
+            switch (set) {
+                case DIGITS:
+                    matches = charClass == DIGIT;
+                    break;
+                case IDENT_PART:
+                    matches = charClass == DIGIT || charClass == LOWER;
+                    break;
+                case LOWER_IDENT_PART:
+                    matches = charClass == DIGIT || charClass == LOWER || c == '-';
+                    break;
+                default:
+                    matches = charClass == DIGIT || charClass == LOWER || charClass == UPPER || c == '_';
+                    break;
+            }
+            if (!matches) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    // 'if' and 'else' win a tie with LOWER_IDENT
+    private int lowerType(int start, int end) {
+        if (input.startsWith("if", start) && end - start == 2) {
+            return ICSSLexer.IF;
+        } else if (input.startsWith("else", start) && end - start == 4) {
+            return ICSSLexer.ELSE;
+        }
+        return ICSSLexer.LOWER_IDENT;
+    }
+
+    // 'TRUE' and 'FALSE' win a tie with CAPITAL_IDENT
+    private int capitalType(int start, int end) {
+        if (input.startsWith("TRUE", start) && end - start == 4) {
+            return ICSSLexer.TRUE;
+        } else if (input.startsWith("FALSE", start) && end - start == 5) {
+            return ICSSLexer.FALSE;
+        }
+        return ICSSLexer.CAPITAL_IDENT;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    // Appends a token covering [start, end) to the buffer
+    private void add(int type, int start, int end) {
+        if (count == types.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            types = Arrays.copyOf(types, types.length * 2);
+        }
+        buffer[count * 2] = start;
+        buffer[count * 2 + 1] = end - 1;
+        // Token types fit in a byte, EOF is stored as -1 as well
+        types[count] = (byte) type;
+        count++;
+    }
+
+    // Records that a line starts at index
+    private void newLine(int index) {
+        if (lines == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+        }
+        lineStarts[lines++] = index;
+    }
+
+    // TokenSource //
+
+    @Override
+    public Token nextToken() {
+        // Keep returning EOF once the input is exhausted
+        int index = Math.min(next, count - 1);
+        next++;
+        int type = types[index];
+        int start = buffer[index * 2];
+        int stop = buffer[index * 2 + 1];
+        int line = lineOf(start);
+        int charPositionInLine = start - lineStarts[line - 1];
+        if (factory == CommonTokenFactory.DEFAULT) {
+            // Same memory footprint as the tokens of ICSSLexer, the text is only cut from the input when asked for
+            FastToken token = new FastToken(source, type, start, stop, input);
+            token.setLine(line);
+            token.setCharPositionInLine(charPositionInLine);
+            return token;
+        }
+        String text = type == Token.EOF ? "<EOF>" : input.substring(start, stop + 1);
+        return factory.create(source, type, text, Token.DEFAULT_CHANNEL, start, stop, line, charPositionInLine);
+    }
+
+    // Line of a character index, tokens are requested in order so the line only moves forward
+    private int lineOf(int index) {
+        while (nextLine + 1 < lines && lineStarts[nextLine + 1] <= index) {
+            nextLine++;
+        }
+        return nextLine + 1;
+    }
+
+    // Token that takes its text from the lexed string, there is no CharStream to take it from
+    private static class FastToken extends CommonToken {
+        private static final long serialVersionUID = 1L;
+
+        private final String input;
+
+        FastToken(Pair<TokenSource, CharStream> source, int type, int start, int stop, String input) {
+            super(source, type, Token.DEFAULT_CHANNEL, start, stop);
+            this.input = input;
+        }
+
+        @Override
+        public String getText() {
+            if (text != null) {
+                return text;
+            }
+            return type == Token.EOF ? "<EOF>" : input.substring(start, stop + 1);
+        }
+    }
+
+    @Override
+    public int getLine() {
+        return lineOf(buffer[Math.min(next, count - 1) * 2]);
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        int start = buffer[Math.min(next, count - 1) * 2];
+        return start - lineStarts[lineOf(start) - 1];
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return null;
+    }
+
+    @Override
+    public String getSourceName() {
+        return "ICSSFastLexer";
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
@@ -0,0 +1,138 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Creates ICSSLexers and ICSSParsers and manages the prediction cache they share: the DFAs Antlr builds while
+ * predicting and the cache of prediction contexts. The generated lexer and parser already keep these in static
+ * fields, so every lexer and parser profits from what the others have already learned, and the shared instance
+ * warms them up with the bundled level files before first use.
+ *
+ * The lexers and parsers themselves are not thread safe, create one per thread. Antlr locks the cache while
+ * updating it, so a factory can be used from any number of threads. Use clear() to bound its memory when no
+ * parses are in progress, getCacheSize() tells how large it is. As the cache is static, every factory sees the
+ * same one.
+ */
+public class ICSSParserFactory {
+
+    private static final String[] WARM_UP_RESOURCES = {
+            "level0.icss", "level1.icss", "level2.icss", "level3.icss", "level4.icss"
+    };
+
+    // The shared instance is only created, and warmed up, when it is first asked for
+    private static class Shared {
+        static final ICSSParserFactory INSTANCE = createWarm();
+
+        private static ICSSParserFactory createWarm() {
+            ICSSParserFactory factory = new ICSSParserFactory();
+            factory.warmUp();
+            return factory;
+        }
+    }
+
+    public static ICSSParserFactory shared() {
+        return Shared.INSTANCE;
+    }
+
+    public ICSSLexer createLexer(CharStream input) {
+        return new ICSSLexer(input);
+    }
+
+    public ICSSParser createParser(TokenStream tokens) {
+        return new ICSSParser(tokens);
+    }
+
+    // Parses the bundled level files in both prediction modes, so the common decisions are in the cache
+    public void warmUp() {
+        for (String resource : WARM_UP_RESOURCES) {
+            try (InputStream in = ICSSParserFactory.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in != null) {
+                    warmUp(CharStreams.fromStream(in));
+                }
+            } catch (IOException e) {
+                // Warming up is an optimization, a missing or unreadable file only means a colder cache
+            }
+        }
+    }
+
+    // Lexes and parses one input with SLL and LL prediction, errors are ignored
+    public void warmUp(CharStream input) {
+        ICSSLexer lexer = createLexer(input);
+        lexer.removeErrorListeners();
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+
+        ICSSParser parser = createParser(tokens);
+        parser.removeErrorListeners();
+        for (PredictionMode mode : new PredictionMode[]{PredictionMode.SLL, PredictionMode.LL}) {
+            tokens.seek(0);
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(mode);
+            try {
+                parser.stylesheet();
+            } catch (ParseCancellationException | RecognitionException e) {
+                // Only the predictions matter here
+            }
+        }
+    }
+
+    // Drops the DFAs learned so far. Must not be called while a lexer or parser is running: the DFAs are replaced in
+    // the shared array those read and write, so a parse in progress would switch to the empty DFAs halfway through.
+    // Antlr has no way to empty the prediction contexts, those are only a small part of the cache
+    public void clear() {
+        lexerSimulator().clearDFA();
+        parserSimulator().clearDFA();
+    }
+
+    // Number of DFA states and cached prediction contexts of the lexer and the parser
+    public int getCacheSize() {
+        LexerATNSimulator lexer = lexerSimulator();
+        ParserATNSimulator parser = parserSimulator();
+        return dfaStates(lexer.decisionToDFA) + contexts(lexer)
+                + dfaStates(parser.decisionToDFA) + contexts(parser);
+    }
+
+    public int getLexerDfaStates() {
+        return dfaStates(lexerSimulator().decisionToDFA);
+    }
+
+    public int getParserDfaStates() {
+        return dfaStates(parserSimulator().decisionToDFA);
+    }
+
+    // The simulators of a new lexer and parser give access to the static caches of the generated classes
+    private static LexerATNSimulator lexerSimulator() {
+        return new ICSSLexer(CharStreams.fromString("")).getInterpreter();
+    }
+
+    private static ParserATNSimulator parserSimulator() {
+        return new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString("")))).getInterpreter();
+    }
+
+    private static int dfaStates(DFA[] decisionToDFA) {
+        int states = 0;
+        for (DFA dfa : decisionToDFA) {
+            // Antlr adds states while holding this lock
+            synchronized (dfa.states) {
+                states += dfa.states.size();
+            }
+        }
+        return states;
+    }
+
+    private static int contexts(ATNSimulator simulator) {
+        // Antlr updates the context cache while holding its lock
+        synchronized (simulator.getSharedContextCache()) {
+            return simulator.getSharedContextCache().size();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+
+/**
+ * Hand-written recursive descent parser for the parser rules of ICSS.g4. It reads the token buffer of
+ * ICSSFastLexer and builds the AST directly, without a parse tree and without walking it with ASTListener.
+ *
+ * It does not recover from syntax errors, the first one throws a ParseCancellationException.
+ * Pipeline then parses the input again with ICSSParser to report the errors.
+ */
+public class ICSSRecursiveParser {
+
+    private final ICSSFastLexer tokens;
+    // Index of the current token
+    private int index;
+
+    public ICSSRecursiveParser(ICSSFastLexer tokens) {
+        this.tokens = tokens;
+    }
+
+    // stylesheet: (variableAssignment | stylerule)* EOF
+    public AST parse() {
+        index = 0;
+        Stylesheet stylesheet = new Stylesheet();
+        while (type() != ICSSLexer.EOF) {
+            if (type() == ICSSLexer.CAPITAL_IDENT) {
+                stylesheet.addChild(variableAssignment());
+            } else {
+                stylesheet.addChild(stylerule());
+            }
+        }
+        return new AST(stylesheet);
+    }
+
+    // stylerule: selector OPEN_BRACE (declaration | variableAssignment | ifClause)* CLOSE_BRACE
+    private Stylerule stylerule() {
+        Stylerule stylerule = new Stylerule();
+        stylerule.selectors.add(selector());
+        stylerule.body = block();
+        return stylerule;
+    }
+
+    private Selector selector() {
+        switch (type()) {
+            case ICSSLexer.LOWER_IDENT:
+                return new TagSelector(consume());
+            case ICSSLexer.ID_IDENT:
+                return new IdSelector(consume());
+            case ICSSLexer.CLASS_IDENT:
+                return new ClassSelector(consume());
+            default:
+                throw error("a selector");
+        }
+    }
+
+    // OPEN_BRACE (declaration | variableAssignment | ifClause)* CLOSE_BRACE, shared by stylerules, if and else
+    private ArrayList<ASTNode> block() {
+        expect(ICSSLexer.OPEN_BRACE);
+        ArrayList<ASTNode> body = new ArrayList<>();
+        while (type() != ICSSLexer.CLOSE_BRACE) {
+            switch (type()) {
+                case ICSSLexer.LOWER_IDENT:
+                    body.add(declaration());
+                    break;
+                case ICSSLexer.CAPITAL_IDENT:
+                    body.add(variableAssignment());
+                    break;
+                case ICSSLexer.IF:
+                    body.add(ifClause());
+                    break;
+                default:
+                    throw error("a declaration, variable assignment, if clause or '}'");
+            }
+        }
+        index++;
+        return body;
+    }
+
+    // declaration: LOWER_IDENT COLON expression SEMICOLON
+    private Declaration declaration() {
+        Declaration declaration = new Declaration();
+        declaration.property = new PropertyName(consume());
+        expect(ICSSLexer.COLON);
+        declaration.expression = expression();
+        expect(ICSSLexer.SEMICOLON);
+        return declaration;
+    }
+
+    // variableAssignment: CAPITAL_IDENT ASSIGNMENT_OPERATOR expression SEMICOLON
+    private VariableAssignment variableAssignment() {
+        VariableAssignment assignment = new VariableAssignment();
+        assignment.name = new VariableReference(consume());
+        expect(ICSSLexer.ASSIGNMENT_OPERATOR);
+        assignment.expression = expression();
+        expect(ICSSLexer.SEMICOLON);
+        return assignment;
+    }
+
+    // ifClause: IF BOX_BRACKET_OPEN expression BOX_BRACKET_CLOSE block (elseClause)?
+    private IfClause ifClause() {
+        index++;
+        IfClause ifClause = new IfClause();
+        expect(ICSSLexer.BOX_BRACKET_OPEN);
+        ifClause.conditionalExpression = expression();
+        expect(ICSSLexer.BOX_BRACKET_CLOSE);
+        ifClause.body = block();
+        if (type() == ICSSLexer.ELSE) {
+            index++;
+            ifClause.elseClause = new ElseClause(block());
+        }
+        return ifClause;
+    }
+
+    // expression: expression (PLUS | MIN) multiplicativeExpression | multiplicativeExpression
+    // The left recursion becomes a loop, so the operations stay left associative
+    private Expression expression() {
+        Expression expression = multiplicativeExpression();
+        while (type() == ICSSLexer.PLUS || type() == ICSSLexer.MIN) {
+            Operation operation = consumeType() == ICSSLexer.PLUS ? new AddOperation() : new SubtractOperation();
+            operation.lhs = expression;
+            operation.rhs = multiplicativeExpression();
+            expression = operation;
+        }
+        return expression;
+    }
+
+    // multiplicativeExpression: multiplicativeExpression (MUL | DIV) primaryExpression | primaryExpression
+    private Expression multiplicativeExpression() {
+        Expression expression = primaryExpression();
+        while (type() == ICSSLexer.MUL || type() == ICSSLexer.DIV) {
+            Operation operation = consumeType() == ICSSLexer.MUL ? new MultiplyOperation() : new DivideOperation();
+            operation.lhs = expression;
+            operation.rhs = primaryExpression();
+            expression = operation;
+        }
+        return expression;
+    }
+
+    // primaryExpression: BOX_BRACKET_OPEN expression BOX_BRACKET_CLOSE | literal | CAPITAL_IDENT
+    private Expression primaryExpression() {
+        switch (type()) {
+            case ICSSLexer.BOX_BRACKET_OPEN:
+                index++;
+                Expression expression = expression();
+                expect(ICSSLexer.BOX_BRACKET_CLOSE);
+                return expression;
+            case ICSSLexer.PIXELSIZE:
+                String pixels = consume();
+                return new PixelLiteral(Integer.parseInt(pixels.substring(0, pixels.length() - 2)));
+            case ICSSLexer.PERCENTAGE:
+                String percentage = consume();
+                return new PercentageLiteral(Integer.parseInt(percentage.substring(0, percentage.length() - 1)));
+            case ICSSLexer.SCALAR:
+                return new ScalarLiteral(Integer.parseInt(consume()));
+            case ICSSLexer.COLOR:
+                return new ColorLiteral(consume());
+            case ICSSLexer.TRUE:
+                index++;
+                return new BoolLiteral(true);
+            case ICSSLexer.FALSE:
+                index++;
+                return new BoolLiteral(false);
+            case ICSSLexer.CAPITAL_IDENT:
+                return new VariableReference(consume());
+            default:
+                throw error("an expression");
+        }
+    }
+
+    private int type() {
+        return tokens.getTokenType(index);
+    }
+
+    // Returns the text of the current token and moves to the next one
+    private String consume() {
+        return tokens.getTokenText(index++);
+    }
+
+    // Returns the type of the current token and moves to the next one
+    private int consumeType() {
+        return tokens.getTokenType(index++);
+    }
+
+    private void expect(int type) {
+        if (type() != type) {
+            throw error(ICSSParser.VOCABULARY.getDisplayName(type));
+        }
+        index++;
+    }
+
+    private ParseCancellationException error(String expected) {
+        return new ParseCancellationException("line " + tokens.getTokenLine(index) + ":"
+                + tokens.getTokenCharPositionInLine(index) + " expected " + expected
+                + " but found '" + tokens.getTokenText(index) + "'");
+    }
+}
@@ -0,0 +1,213 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CharStream over UTF-8 bytes, typically a memory-mapped file, that decodes characters when the lexer asks for them.
+ * The input is never copied into a char array or String, only the text of tokens is.
+ *
+ * Like Antlr's own streams the index counts code points. For pure ASCII input that is the byte offset, otherwise
+ * the byte offset of every CHECKPOINT_INTERVAL-th code point is remembered, so seeking back to the start of a
+ * token only has to decode forward from the nearest checkpoint. Malformed bytes decode to U+FFFD, one per byte.
+ */
+public class MappedCharStream implements CharStream {
+
+    private static final int CHECKPOINT_INTERVAL = 1024;
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final ByteBuffer bytes;
+    private final String sourceName;
+    // Number of code points
+    private final int size;
+    private final boolean ascii;
+    // Byte offset of code point i * CHECKPOINT_INTERVAL, null for ASCII input
+    private final int[] checkpoints;
+
+    // Current code point and its byte offset
+    private int index;
+    private int offset;
+
+    // Streams the bytes between position and limit of the buffer, the buffer itself is not changed
+    public MappedCharStream(ByteBuffer bytes, String sourceName) {
+        this.bytes = bytes.slice();
+        this.sourceName = sourceName;
+
+        int length = this.bytes.limit();
+        int firstNonAscii = 0;
+        while (firstNonAscii < length && this.bytes.get(firstNonAscii) >= 0) {
+            firstNonAscii++;
+        }
+        ascii = firstNonAscii == length;
+        if (ascii) {
+            size = length;
+            checkpoints = null;
+            return;
+        }
+
+        // One pass over the bytes to count the code points and remember the checkpoints
+        checkpoints = new int[length / CHECKPOINT_INTERVAL + 1];
+        int codePoints = 0;
+        int position = 0;
+        while (position < length) {
+            if (codePoints % CHECKPOINT_INTERVAL == 0) {
+                checkpoints[codePoints / CHECKPOINT_INTERVAL] = position;
+            }
+            position += sequenceLength(position);
+            codePoints++;
+        }
+        if (codePoints % CHECKPOINT_INTERVAL == 0) {
+            // Seeking to the end starts from here
+            checkpoints[codePoints / CHECKPOINT_INTERVAL] = length;
+        }
+        size = codePoints;
+    }
+
+    @Override
+    public void consume() {
+        if (index >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        offset += ascii ? 1 : sequenceLength(offset);
+        index++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            // Undefined
+            return 0;
+        }
+        int target = i > 0 ? index + i - 1 : index + i;
+        if (target < 0 || target >= size) {
+            return IntStream.EOF;
+        }
+        if (ascii) {
+            return bytes.get(target);
+        }
+        if (i == 1) {
+            return codePointAt(offset);
+        }
+        return codePointAt(offsetOf(target));
+    }
+
+    // The whole input is available, so marks don't have to hold on to anything
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        index = Math.min(index, size);
+        offset = ascii ? index : offsetOf(index);
+        this.index = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (start > stop) {
+            return "";
+        }
+        if (ascii) {
+            byte[] text = new byte[stop - start + 1];
+            bytes.duplicate().position(start).get(text);
+            return new String(text, StandardCharsets.US_ASCII);
+        }
+        StringBuilder text = new StringBuilder(stop - start + 1);
+        int position = offsetOf(start);
+        for (int i = start; i <= stop; i++) {
+            text.appendCodePoint(codePointAt(position));
+            position += sequenceLength(position);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+
+    // Byte offset of a code point, decodes forward from the current position or the checkpoint before it
+    private int offsetOf(int target) {
+        int from = target / CHECKPOINT_INTERVAL * CHECKPOINT_INTERVAL;
+        int position = checkpoints[target / CHECKPOINT_INTERVAL];
+        if (index <= target && index > from) {
+            from = index;
+            position = offset;
+        }
+        for (int i = from; i < target; i++) {
+            position += sequenceLength(position);
+        }
+        return position;
+    }
+
+    // Number of bytes of the UTF-8 sequence at position, 1 for a malformed one
+    private int sequenceLength(int position) {
+        int lead = bytes.get(position) & 0xFF;
+        int length;
+        if (lead < 0x80) {
+            return 1;
+        } else if (lead >= 0xC2 && lead < 0xE0) {
+            length = 2;
+        } else if (lead >= 0xE0 && lead < 0xF0) {
+            length = 3;
+        } else if (lead >= 0xF0 && lead < 0xF5) {
+            length = 4;
+        } else {
+            return 1;
+        }
+        if (position + length > bytes.limit()) {
+            return 1;
+        }
+        for (int i = 1; i < length; i++) {
+            if ((bytes.get(position + i) & 0xC0) != 0x80) {
+                return 1;
+            }
+        }
+        return length;
+    }
+
+    private int codePointAt(int position) {
+        int lead = bytes.get(position) & 0xFF;
+        if (lead < 0x80) {
+            return lead;
+        }
+        switch (sequenceLength(position)) {
+            case 2:
+                return (lead & 0x1F) << 6 | bytes.get(position + 1) & 0x3F;
+            case 3:
+                return (lead & 0x0F) << 12 | (bytes.get(position + 1) & 0x3F) << 6 | bytes.get(position + 2) & 0x3F;
+            case 4:
+                return (lead & 0x07) << 18 | (bytes.get(position + 1) & 0x3F) << 12
+                        | (bytes.get(position + 2) & 0x3F) << 6 | bytes.get(position + 3) & 0x3F;
+            default:
+                return REPLACEMENT_CHARACTER;
+        }
+    }
+}
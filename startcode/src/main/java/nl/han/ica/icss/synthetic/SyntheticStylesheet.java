@@ -0,0 +1,370 @@
+package nl.han.ica.icss.synthetic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large, valid ICSS stylesheets for benchmarks and scaling tests.
+ * The output only depends on the settings and the seed, so the same configuration always produces the same file.
+ * Every generated stylesheet parses, passes the Checker and evaluates without errors.
+ *
+ * Usage: SyntheticStylesheet <output file> [--rules n | --size bytes[k|m]] [--seed s]
+ */
+public class SyntheticStylesheet {
+
+    private static final String[] TAGS = {"p", "a", "div", "span", "header", "footer", "section", "ul", "li", "h1"};
+    private static final String[] SIZE_PROPERTIES = {"width", "height"};
+    private static final String[] COLOR_PROPERTIES = {"color", "background-color"};
+
+    // Types a generated expression can have, mirrors the types the Checker knows about
+    private enum Type { PIXEL, PERCENTAGE, SCALAR, COLOR, BOOL }
+
+    private long seed = 42;
+    private int rules = 1000;
+    private long targetSize = -1;
+    private int globalVariables = 20;
+    private int declarationsPerRule = 4;
+    private double variableRatio = 0.2;
+    private double ifRatio = 0.2;
+    private int maxIfDepth = 2;
+    private int maxExpressionDepth = 3;
+    private int tagWeight = 1;
+    private int idWeight = 1;
+    private int classWeight = 1;
+
+    // Generation state
+    private Random random;
+    private Appendable out;
+    private long written;
+    private int variableCounter;
+    private final List<List<Variable>> scopes = new ArrayList<>();
+
+    public SyntheticStylesheet seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    // Number of stylerules to generate, ignored when a target size is set
+    public SyntheticStylesheet rules(int rules) {
+        this.rules = rules;
+        return this;
+    }
+
+    // Keep generating stylerules until the output is at least this many characters long
+    public SyntheticStylesheet targetSize(long characters) {
+        this.targetSize = characters;
+        return this;
+    }
+
+    public SyntheticStylesheet globalVariables(int count) {
+        this.globalVariables = count;
+        return this;
+    }
+
+    public SyntheticStylesheet declarationsPerRule(int count) {
+        this.declarationsPerRule = count;
+        return this;
+    }
+
+    // Chance that an item in a body is a variable assignment instead of a declaration
+    public SyntheticStylesheet variableRatio(double ratio) {
+        this.variableRatio = ratio;
+        return this;
+    }
+
+    // Chance that an item in a body is an if clause, as long as maxIfDepth is not reached
+    public SyntheticStylesheet ifRatio(double ratio) {
+        this.ifRatio = ratio;
+        return this;
+    }
+
+    public SyntheticStylesheet maxIfDepth(int depth) {
+        this.maxIfDepth = depth;
+        return this;
+    }
+
+    // Maximum nesting of operations in one expression, 0 only produces literals and variable references
+    public SyntheticStylesheet maxExpressionDepth(int depth) {
+        this.maxExpressionDepth = depth;
+        return this;
+    }
+
+    // Relative weights of tag, id and class selectors
+    public SyntheticStylesheet selectorWeights(int tag, int id, int cls) {
+        this.tagWeight = tag;
+        this.idWeight = id;
+        this.classWeight = cls;
+        return this;
+    }
+
+    public String generate() {
+        StringBuilder sb = new StringBuilder();
+        write(sb);
+        return sb.toString();
+    }
+
+    public void write(Appendable out) {
+        this.out = out;
+        random = new Random(seed);
+        written = 0;
+        variableCounter = 0;
+        scopes.clear();
+        try {
+            writeStylesheet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SyntheticStylesheet <output file> [--rules n | --size bytes[k|m]] [--seed s]");
+            System.exit(2);
+        }
+        SyntheticStylesheet generator = new SyntheticStylesheet();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rules":
+                    generator.rules(Integer.parseInt(args[i + 1]));
+                    break;
+                case "--size":
+                    generator.targetSize(parseSize(args[i + 1]));
+                    break;
+                case "--seed":
+                    generator.seed(Long.parseLong(args[i + 1]));
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            generator.write(writer);
+        }
+    }
+
+    // 100m -> 100 * 1024 * 1024
+    private static long parseSize(String text) {
+        char unit = Character.toLowerCase(text.charAt(text.length() - 1));
+        if (unit == 'k') {
+            return Long.parseLong(text.substring(0, text.length() - 1)) * 1024;
+        } else if (unit == 'm') {
+            return Long.parseLong(text.substring(0, text.length() - 1)) * 1024 * 1024;
+        }
+        return Long.parseLong(text);
+    }
+
+    private void writeStylesheet() throws IOException {
+        scopes.add(new ArrayList<>());
+        for (int i = 0; i < globalVariables; i++) {
+            writeVariableAssignment(0);
+        }
+        emit("\n");
+        for (int i = 0; targetSize >= 0 ? written < targetSize : i < rules; i++) {
+            writeStylerule(i);
+        }
+    }
+
+    private void writeStylerule(int index) throws IOException {
+        emit(selector(index));
+        emit(" {\n");
+        writeBody(1, 0);
+        emit("}\n");
+    }
+
+    // Writes the declarations, assignments and if clauses of one body in a fresh scope
+    private void writeBody(int indent, int ifDepth) throws IOException {
+        scopes.add(new ArrayList<>());
+        for (int i = 0; i < declarationsPerRule; i++) {
+            double roll = random.nextDouble();
+            if (roll < variableRatio) {
+                writeVariableAssignment(indent);
+            } else if (roll < variableRatio + ifRatio && ifDepth < maxIfDepth) {
+                writeIfClause(indent, ifDepth + 1);
+            } else {
+                writeDeclaration(indent);
+            }
+        }
+        // Make sure a body never ends up without any declaration
+        writeDeclaration(indent);
+        scopes.remove(scopes.size() - 1);
+    }
+
+    private void writeDeclaration(int indent) throws IOException {
+        indent(indent);
+        if (random.nextInt(3) == 0) {
+            emit(COLOR_PROPERTIES[random.nextInt(COLOR_PROPERTIES.length)]);
+            emit(": ");
+            writeExpression(Type.COLOR, 0);
+        } else {
+            emit(SIZE_PROPERTIES[random.nextInt(SIZE_PROPERTIES.length)]);
+            emit(": ");
+            writeExpression(random.nextBoolean() ? Type.PIXEL : Type.PERCENTAGE, maxExpressionDepth);
+        }
+        emit(";\n");
+    }
+
+    private void writeVariableAssignment(int indent) throws IOException {
+        Type type = Type.values()[random.nextInt(Type.values().length)];
+        String name = "Var" + (variableCounter++);
+        indent(indent);
+        emit(name);
+        emit(" := ");
+        writeExpression(type, maxExpressionDepth);
+        emit(";\n");
+        // Only visible after the assignment, so it is registered last
+        scopes.get(scopes.size() - 1).add(new Variable(name, type));
+    }
+
+    private void writeIfClause(int indent, int ifDepth) throws IOException {
+        indent(indent);
+        emit("if[");
+        writeExpression(Type.BOOL, 0);
+        emit("] {\n");
+        writeBody(indent + 1, ifDepth);
+        indent(indent);
+        emit("}");
+        if (random.nextBoolean()) {
+            emit(" else {\n");
+            writeBody(indent + 1, ifDepth);
+            indent(indent);
+            emit("}");
+        }
+        emit("\n");
+    }
+
+    // Writes an expression that the Checker types as the given type
+    private void writeExpression(Type type, int depth) throws IOException {
+        writeExpression(type, depth, false);
+    }
+
+    // Operands of * and / are always bracketed when they are operations themselves, otherwise precedence
+    // would regroup them and change the type of the expression
+    private void writeExpression(Type type, int depth, boolean operand) throws IOException {
+        boolean numeric = type == Type.PIXEL || type == Type.PERCENTAGE || type == Type.SCALAR;
+        if (numeric && depth > 0 && random.nextInt(3) > 0) {
+            writeOperation(type, depth - 1, operand);
+            return;
+        }
+        Variable variable = randomVariable(type);
+        if (variable != null && random.nextBoolean()) {
+            emit(variable.name);
+        } else {
+            writeLiteral(type);
+        }
+    }
+
+    private void writeOperation(Type type, int depth, boolean operand) throws IOException {
+        boolean bracketed = operand || random.nextInt(4) == 0;
+        if (bracketed) {
+            emit("[");
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                writeExpression(type, depth);
+                emit(" + ");
+                writeExpression(type, depth);
+                break;
+            case 1:
+                writeExpression(type, depth);
+                emit(" - ");
+                writeExpression(type, depth);
+                break;
+            case 2:
+                // One side of a multiplication has to be a scalar
+                if (random.nextBoolean()) {
+                    writeExpression(Type.SCALAR, depth, true);
+                    emit(" * ");
+                    writeExpression(type, depth, true);
+                } else {
+                    writeExpression(type, depth, true);
+                    emit(" * ");
+                    writeExpression(Type.SCALAR, depth, true);
+                }
+                break;
+            default:
+                // Divide by a non zero scalar literal only, so evaluation can never divide by zero
+                writeExpression(type, depth, true);
+                emit(" / ");
+                emit(Integer.toString(1 + random.nextInt(9)));
+                break;
+        }
+        if (bracketed) {
+            emit("]");
+        }
+    }
+
+    private void writeLiteral(Type type) throws IOException {
+        switch (type) {
+            case PIXEL:
+                emit((1 + random.nextInt(500)) + "px");
+                break;
+            case PERCENTAGE:
+                emit((1 + random.nextInt(100)) + "%");
+                break;
+            case SCALAR:
+                emit(Integer.toString(1 + random.nextInt(10)));
+                break;
+            case COLOR:
+                emit(String.format("#%06x", random.nextInt(0x1000000)));
+                break;
+            default:
+                emit(random.nextBoolean() ? "TRUE" : "FALSE");
+                break;
+        }
+    }
+
+    private String selector(int index) {
+        int roll = random.nextInt(tagWeight + idWeight + classWeight);
+        if (roll < tagWeight) {
+            return TAGS[random.nextInt(TAGS.length)];
+        } else if (roll < tagWeight + idWeight) {
+            return "#id-" + index;
+        }
+        return ".class-" + index;
+    }
+
+    // Picks a variable of the given type from any scope that is currently visible
+    private Variable randomVariable(Type type) {
+        List<Variable> candidates = new ArrayList<>();
+        for (List<Variable> scope : scopes) {
+            for (Variable variable : scope) {
+                if (variable.type == type) {
+                    candidates.add(variable);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private void indent(int level) throws IOException {
+        for (int i = 0; i < level; i++) {
+            emit("    ");
+        }
+    }
+
+    private void emit(String text) throws IOException {
+        out.append(text);
+        written += text.length();
+    }
+
+    private static class Variable {
+        final String name;
+        final Type type;
+
+        Variable(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+}
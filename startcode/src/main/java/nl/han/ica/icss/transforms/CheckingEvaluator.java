@@ -0,0 +1,281 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.datastructures.HANSymbolTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+
+import java.util.ArrayList;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Checker and Evaluator in one walk over the AST. Every expression is visited once for both its type and its value,
+ * and there is a single scope stack with the type and value of every variable.
+ * The same semantic errors as the Checker are set on the same nodes, so AST.getErrors() gives the same list. Like the
+ * Checker, the bodies of if clauses that don't apply are checked too, their declarations just don't end up in the
+ * output. The evaluated bodies are only put into the AST when there are no errors, otherwise the AST is left as it
+ * was apart from the errors.
+ */
+public class CheckingEvaluator extends ASTBaseVisitor<Void> implements Transform {
+
+    private IHANSymbolTable<Variable> variables;
+
+    // Stylerules and their evaluated bodies, put into the AST when everything is checked
+    private ArrayList<Stylerule> rules;
+    private ArrayList<ArrayList<ASTNode>> bodies;
+    // Evaluated body of the stylerule that is being visited
+    private ArrayList<ASTNode> output;
+    // False in the body of an if or else clause that doesn't apply
+    private boolean emit;
+    private int errors;
+
+    // Type, packed value and existing literal of the last visited expression, like in the Evaluator
+    private ExpressionType type;
+    private long value;
+    private Literal literal;
+
+    @Override
+    public void apply(AST ast) {
+        checkAndApply(ast);
+    }
+
+    // Checks and evaluates the AST, returns false when there are semantic errors and the AST is not transformed
+    public boolean checkAndApply(AST ast) {
+        variables = new HANSymbolTable<>();
+        // Start with global scope
+        variables.pushScope();
+        rules = new ArrayList<>();
+        bodies = new ArrayList<>();
+        emit = true;
+        errors = 0;
+
+        ast.root.accept(this);
+
+        if (errors == 0) {
+            for (int i = 0; i < rules.size(); i++) {
+                rules.get(i).body = bodies.get(i);
+            }
+        }
+        rules = null;
+        bodies = null;
+        return errors == 0;
+    }
+
+    // Number of semantic errors found by the last checkAndApply
+    public int getErrorCount() {
+        return errors;
+    }
+
+    @Override
+    public Void visitStylesheet(Stylesheet stylesheet) {
+        for (ASTNode child : stylesheet.body) {
+            child.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitStylerule(Stylerule stylerule) {
+        variables.pushScope();
+        output = new ArrayList<>();
+        visitBody(stylerule.body);
+        rules.add(stylerule);
+        bodies.add(output);
+        variables.popScope();
+        return null;
+    }
+
+    private void visitBody(ArrayList<ASTNode> body) {
+        for (ASTNode child : body) {
+            child.accept(this);
+        }
+    }
+
+    // Checks the type of the value, a new declaration with the evaluated value goes into the output
+    @Override
+    public Void visitDeclaration(Declaration declaration) {
+        declaration.clearError();
+        Literal result = evaluate(declaration.expression);
+        Checker.checkDeclaration(declaration, type);
+        countError(declaration);
+        if (emit) {
+            Declaration evaluated = new Declaration();
+            evaluated.property = declaration.property;
+            evaluated.expression = result;
+            output.add(evaluated);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableAssignment(VariableAssignment assignment) {
+        Literal result = evaluate(assignment.expression);
+        assignment.name.setType(type);
+        variables.put(assignment.name.name, new Variable(assignment, type, result));
+        return null;
+    }
+
+    // Both bodies are checked in their own scope, only the one that applies is evaluated into the output
+    @Override
+    public Void visitIfClause(IfClause ifClause) {
+        ifClause.clearError();
+        visit(ifClause.conditionalExpression);
+        Checker.checkCondition(ifClause, type);
+        countError(ifClause);
+        boolean condition = PackedValue.unit(value) == PackedValue.BOOL && PackedValue.value(value) != 0;
+
+        boolean outer = emit;
+        emit = outer && condition;
+        variables.pushScope();
+        visitBody(ifClause.body);
+        variables.popScope();
+
+        if (ifClause.elseClause != null) {
+            emit = outer && !condition;
+            ifClause.elseClause.accept(this);
+        }
+        emit = outer;
+        return null;
+    }
+
+    @Override
+    public Void visitElseClause(ElseClause elseClause) {
+        variables.pushScope();
+        visitBody(elseClause.body);
+        variables.popScope();
+        return null;
+    }
+
+    // Only counts errors of this pass, the nodes are cleared before they are checked
+    private void countError(ASTNode node) {
+        if (node.hasError()) {
+            errors++;
+        }
+    }
+
+    // Visits an expression and returns its literal value, only creates one when the value is computed
+    private Literal evaluate(Expression expression) {
+        visit(expression);
+        if (literal == null) {
+            literal = PackedValue.toLiteral(value);
+        }
+        return literal;
+    }
+
+    private void visit(Expression expression) {
+        if (expression == null) {
+            // Like a missing expression in the Checker
+            set(ExpressionType.UNDEFINED, null, PackedValue.pack(PackedValue.NONE, 0));
+            return;
+        }
+        // An error of an earlier pass is set again when it still applies
+        expression.clearError();
+        expression.accept(this);
+        // Same annotation as the Checker
+        expression.setType(type);
+    }
+
+    private Void set(ExpressionType type, Literal existing, long packed) {
+        this.type = type;
+        literal = existing;
+        value = packed;
+        return null;
+    }
+
+    @Override
+    public Void visitPixelLiteral(PixelLiteral pixelLiteral) {
+        return set(ExpressionType.PIXEL, pixelLiteral, PackedValue.pack(PackedValue.PIXEL, pixelLiteral.value));
+    }
+
+    @Override
+    public Void visitPercentageLiteral(PercentageLiteral percentageLiteral) {
+        return set(ExpressionType.PERCENTAGE, percentageLiteral,
+                PackedValue.pack(PackedValue.PERCENTAGE, percentageLiteral.value));
+    }
+
+    @Override
+    public Void visitScalarLiteral(ScalarLiteral scalarLiteral) {
+        return set(ExpressionType.SCALAR, scalarLiteral, PackedValue.pack(PackedValue.SCALAR, scalarLiteral.value));
+    }
+
+    @Override
+    public Void visitBoolLiteral(BoolLiteral boolLiteral) {
+        return set(ExpressionType.BOOL, boolLiteral, PackedValue.pack(PackedValue.BOOL, boolLiteral.value ? 1 : 0));
+    }
+
+    @Override
+    public Void visitColorLiteral(ColorLiteral colorLiteral) {
+        return set(ExpressionType.COLOR, colorLiteral, PackedValue.pack(PackedValue.NONE, 0));
+    }
+
+    // One lookup gives both the type and the value, an undefined variable evaluates to 0 like in the Evaluator
+    @Override
+    public Void visitVariableReference(VariableReference reference) {
+        Variable variable = variables.get(reference.name);
+        if (variable == null) {
+            reference.setDeclaration(null);
+            Checker.undefinedVariable(reference);
+            countError(reference);
+            return set(ExpressionType.UNDEFINED, null, PackedValue.pack(PackedValue.SCALAR, 0));
+        }
+        reference.setDeclaration(variable.assignment);
+        long packed = variable.value != null ? PackedValue.of(variable.value) : PackedValue.pack(PackedValue.NONE, 0);
+        return set(variable.type, variable.value, packed);
+    }
+
+    @Override
+    public Void visitAddOperation(AddOperation operation) {
+        return visitOperation(operation, PackedValue::add, null);
+    }
+
+    @Override
+    public Void visitSubtractOperation(SubtractOperation operation) {
+        return visitOperation(operation, PackedValue::subtract, null);
+    }
+
+    @Override
+    public Void visitMultiplyOperation(MultiplyOperation operation) {
+        return visitOperation(operation, PackedValue::multiply, "multiplication");
+    }
+
+    @Override
+    public Void visitDivideOperation(DivideOperation operation) {
+        return visitOperation(operation, PackedValue::divide, "division");
+    }
+
+    // Types and evaluates both operands, then the operation. Addition and subtraction have no operation name
+    private Void visitOperation(Operation operation, LongBinaryOperator arithmetic, String operationName) {
+        visit(operation.lhs);
+        ExpressionType leftType = type;
+        long left = value;
+        Literal leftLiteral = literal;
+        visit(operation.rhs);
+        type = operationName == null
+                ? Checker.addOrSubtractType(operation, leftType, type)
+                : Checker.multiplyOrDivideType(operation, operationName, leftType, type);
+        countError(operation);
+        value = arithmetic.applyAsLong(left, value);
+        // An unchanged value (e.g. a color operand) can keep the left literal, anything else is created on demand
+        literal = value == left ? leftLiteral : null;
+        return null;
+    }
+
+    // Assignment, type and evaluated value of a variable in scope
+    private static class Variable {
+        final VariableAssignment assignment;
+        final ExpressionType type;
+        final Literal value;
+
+        Variable(VariableAssignment assignment, ExpressionType type, Literal value) {
+            this.assignment = assignment;
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
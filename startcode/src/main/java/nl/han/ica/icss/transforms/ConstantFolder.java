@@ -0,0 +1,232 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.datastructures.HANSymbolTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.DivideOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Partial evaluation of a checked AST: everything that only depends on literals is evaluated, the rest stays.
+ * - Operations on literals are replaced by their result
+ * - References to variables with a literal value are replaced by that literal
+ * - If clauses with a literal condition are replaced by the body that applies
+ * References to variables that are never assigned, or that are named as dynamic, are left in place, so the folded
+ * AST can still be evaluated with different values for them. Evaluating the folded AST gives the same CSS as
+ * evaluating the original one.
+ */
+public class ConstantFolder extends ASTBaseVisitor<Expression> implements Transform {
+
+    // Variables that keep their references and assignments, e.g. the ones a theme sets
+    private final Set<String> dynamicVariables;
+
+    // Literal value of every variable in scope, null when it is dynamic
+    private IHANSymbolTable<Literal> constants;
+
+    // Folded body that is being built
+    private ArrayList<ASTNode> output;
+
+    public ConstantFolder() {
+        this(Collections.emptySet());
+    }
+
+    public ConstantFolder(Set<String> dynamicVariables) {
+        this.dynamicVariables = dynamicVariables;
+    }
+
+    @Override
+    public void apply(AST ast) {
+        constants = new HANSymbolTable<>();
+        // Start with global scope
+        constants.pushScope();
+        ast.root.accept(this);
+    }
+
+    // Global variable assignments are kept even when they are inlined, other stylesheets may refer to them
+    @Override
+    public Expression visitStylesheet(Stylesheet stylesheet) {
+        output = new ArrayList<>();
+        for (ASTNode child : stylesheet.body) {
+            if (child instanceof VariableAssignment) {
+                VariableAssignment assignment = (VariableAssignment) child;
+                assign(assignment);
+                output.add(assignment);
+            } else {
+                child.accept(this);
+                output.add(child);
+            }
+        }
+        stylesheet.body = output;
+        return null;
+    }
+
+    @Override
+    public Expression visitStylerule(Stylerule stylerule) {
+        stylerule.body = foldBody(stylerule.body);
+        return null;
+    }
+
+    // Folds a body in its own scope, like the Evaluator evaluates it
+    private ArrayList<ASTNode> foldBody(ArrayList<ASTNode> body) {
+        ArrayList<ASTNode> outer = output;
+        output = new ArrayList<>();
+        constants.pushScope();
+        for (ASTNode child : body) {
+            child.accept(this);
+        }
+        constants.popScope();
+        ArrayList<ASTNode> folded = output;
+        output = outer;
+        return folded;
+    }
+
+    @Override
+    public Expression visitDeclaration(Declaration declaration) {
+        declaration.expression = fold(declaration.expression);
+        output.add(declaration);
+        return null;
+    }
+
+    // Assignments of a literal are dropped, every reference in their scope is replaced by the literal
+    @Override
+    public Expression visitVariableAssignment(VariableAssignment assignment) {
+        if (!assign(assignment)) {
+            output.add(assignment);
+        }
+        return null;
+    }
+
+    // Folds the expression and binds the variable, returns true when its value is a literal
+    private boolean assign(VariableAssignment assignment) {
+        assignment.expression = fold(assignment.expression);
+        String name = assignment.name.name;
+        if (assignment.expression instanceof Literal && !dynamicVariables.contains(name)) {
+            constants.put(name, (Literal) assignment.expression);
+            return true;
+        }
+        // Shadows any literal value from an outer scope
+        constants.put(name, null);
+        return false;
+    }
+
+    @Override
+    public Expression visitIfClause(IfClause ifClause) {
+        ifClause.conditionalExpression = fold(ifClause.conditionalExpression);
+        if (ifClause.conditionalExpression instanceof Literal) {
+            // Only a TRUE literal selects the if body, like in the Evaluator
+            long condition = PackedValue.of((Literal) ifClause.conditionalExpression);
+            if (PackedValue.unit(condition) == PackedValue.BOOL && PackedValue.value(condition) != 0) {
+                inline(foldBody(ifClause.body));
+            } else if (ifClause.elseClause != null) {
+                inline(foldBody(ifClause.elseClause.body));
+            }
+            return null;
+        }
+        ifClause.body = foldBody(ifClause.body);
+        if (ifClause.elseClause != null) {
+            ifClause.elseClause.body = foldBody(ifClause.elseClause.body);
+        }
+        output.add(ifClause);
+        return null;
+    }
+
+    // Adds the body of a branch that always applies. Its remaining assignments need their own scope,
+    // so then it stays wrapped in an if clause that is always true
+    private void inline(ArrayList<ASTNode> body) {
+        for (ASTNode child : body) {
+            if (child instanceof VariableAssignment) {
+                output.add(new IfClause(new BoolLiteral(true), body));
+                return;
+            }
+        }
+        output.addAll(body);
+    }
+
+    // A missing expression stays missing, the Evaluator gives it no value
+    private Expression fold(Expression expression) {
+        return expression != null ? expression.accept(this) : null;
+    }
+
+    // Literals are constant
+    @Override
+    public Expression visitPixelLiteral(PixelLiteral literal) {
+        return literal;
+    }
+
+    @Override
+    public Expression visitPercentageLiteral(PercentageLiteral literal) {
+        return literal;
+    }
+
+    @Override
+    public Expression visitScalarLiteral(ScalarLiteral literal) {
+        return literal;
+    }
+
+    @Override
+    public Expression visitColorLiteral(ColorLiteral literal) {
+        return literal;
+    }
+
+    @Override
+    public Expression visitBoolLiteral(BoolLiteral literal) {
+        return literal;
+    }
+
+    // A reference is replaced by the literal value of its variable, if it has one
+    @Override
+    public Expression visitVariableReference(VariableReference reference) {
+        Literal value = constants.get(reference.name);
+        return value != null ? value : reference;
+    }
+
+    @Override
+    public Expression visitAddOperation(AddOperation operation) {
+        return foldOperation(operation, PackedValue::add);
+    }
+
+    @Override
+    public Expression visitSubtractOperation(SubtractOperation operation) {
+        return foldOperation(operation, PackedValue::subtract);
+    }
+
+    @Override
+    public Expression visitMultiplyOperation(MultiplyOperation operation) {
+        return foldOperation(operation, PackedValue::multiply);
+    }
+
+    @Override
+    public Expression visitDivideOperation(DivideOperation operation) {
+        return foldOperation(operation, PackedValue::divide);
+    }
+
+    // Folds both operands, when they are literals the operation is computed like the Evaluator does
+    private Expression foldOperation(Operation operation, LongBinaryOperator arithmetic) {
+        operation.lhs = fold(operation.lhs);
+        operation.rhs = fold(operation.rhs);
+        if (!(operation.lhs instanceof Literal) || !(operation.rhs instanceof Literal)) {
+            return operation;
+        }
+        long left = PackedValue.of((Literal) operation.lhs);
+        long value = arithmetic.applyAsLong(left, PackedValue.of((Literal) operation.rhs));
+        // An unchanged value (e.g. a color operand) keeps the left literal
+        if (value == left) {
+            return operation.lhs;
+        }
+        Literal result = PackedValue.toLiteral(value);
+        if (result == null) {
+            return operation;
+        }
+        // Keeps the type the Checker found for the operation
+        result.setType(operation.getType());
+        return result;
+    }
+}
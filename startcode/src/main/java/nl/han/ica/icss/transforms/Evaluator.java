@@ -1,7 +1,7 @@
 package nl.han.ica.icss.transforms;
 
-import nl.han.ica.datastructures.HANLinkedList;
-import nl.han.ica.datastructures.IHANLinkedList;
+import nl.han.ica.datastructures.HANSymbolTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.AddOperation;
@@ -10,14 +10,42 @@ import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.operations.DivideOperation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-
-public class Evaluator implements Transform {
-
-    private IHANLinkedList<HashMap<String, Literal>> variableValues;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongBinaryOperator;
+
+// Visits statements into the output body and expressions into a packed value
+public class Evaluator extends ASTBaseVisitor<Void> implements Transform {
+
+    // Stylerules per task when evaluating in parallel
+    private static final int RULES_PER_TASK = 64;
+
+    private IHANSymbolTable<Literal> variableValues;
+    // Frozen global scope of a stylerule of applyParallel, looked up when no scope of variableValues binds a name
+    private Map<String, Literal> globalScope = Collections.emptyMap();
+
+    // Values that replace the global variable assignments of the stylesheet
+    private Map<String, Literal> globals = Collections.emptyMap();
+    // False when the input is left untouched and evaluated into a new stylesheet
+    private boolean inPlace = true;
+    private Stylesheet evaluated;
+    // Only set when resolving: the output and the rule of the stylerule that is being visited
+    private ResolvedStylesheet resolved;
+    private ResolvedRule resolvedRule;
+
+    // Evaluated body of the stylerule that is being visited
+    private ArrayList<ASTNode> output;
+    // Packed value of the last visited expression
+    private long value;
+    // Existing literal for that value, or null when it still has to be created
+    private Literal literal;
 
     public Evaluator() {
-        variableValues = new HANLinkedList<>();
+        variableValues = new HANSymbolTable<>();
     }
 
     // Applies transformations to AST by:
@@ -27,290 +55,359 @@ public class Evaluator implements Transform {
     // - handling variable scopes
     @Override
     public void apply(AST ast) {
-        // Initialize variable values linked list
-        variableValues = new HANLinkedList<>();
-        // Start with global scope
-        variableValues.addFirst(new HashMap<>());
+        begin();
         // Evaluate the stylesheet
-        evaluateStylesheet(ast.root);
+        ast.root.accept(this);
     }
 
-    // Evaluates all variable assignments and stylerules in the stylesheet
-    private void evaluateStylesheet(Stylesheet stylesheet) {
-        // Get all children
-        ArrayList<ASTNode> children = stylesheet.getChildren();
+    // Applies like apply(AST), with the stylerules evaluated concurrently on the common fork-join pool
+    public void applyParallel(AST ast) {
+        applyParallel(ast, ForkJoinPool.commonPool());
+    }
 
-        // Loop through all children
-        for (int i = 0; i < children.size(); i++) {
-            ASTNode child = children.get(i);
+    // Applies like apply(AST), with the stylerules evaluated concurrently on pool. The global variable assignments
+    // are evaluated first, in order, and every stylerule gets a frozen copy of the globals assigned before it.
+    // A stylerule only replaces its own body, so the tasks never touch the same node
+    public void applyParallel(AST ast, ForkJoinPool pool) {
+        begin();
+        Map<String, Literal> values = new HashMap<>();
+        Map<String, Literal> snapshot = null;
+        List<Stylerule> rules = new ArrayList<>();
+        List<Map<String, Literal>> snapshots = new ArrayList<>();
+        for (ASTNode child : ast.root.body) {
+            if (child instanceof Stylerule) {
+                // Usually all globals come first, then every stylerule shares the same snapshot
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableMap(new HashMap<>(values));
+                }
+                rules.add((Stylerule) child);
+                snapshots.add(snapshot);
+            } else {
+                child.accept(this);
+                if (child instanceof VariableAssignment) {
+                    String name = ((VariableAssignment) child).name.name;
+                    values.put(name, variableValues.get(name));
+                    snapshot = null;
+                }
+            }
+        }
+        pool.invoke(new EvaluateRules(rules, snapshots, 0, rules.size()));
+    }
+
+    // Evaluates a range of stylerules, split in halves until it is small enough for one evaluator
+    private static class EvaluateRules extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-            if (child instanceof VariableAssignment) {
-                evaluateVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof Stylerule) {
-                evaluateStylerule((Stylerule) child);
+        private final List<Stylerule> rules;
+        private final List<Map<String, Literal>> snapshots;
+        private final int from;
+        private final int to;
+
+        EvaluateRules(List<Stylerule> rules, List<Map<String, Literal>> snapshots, int from, int to) {
+            this.rules = rules;
+            this.snapshots = snapshots;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > RULES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EvaluateRules(rules, snapshots, from, middle),
+                        new EvaluateRules(rules, snapshots, middle, to));
+                return;
             }
+            Evaluator evaluator = new Evaluator();
+            evaluator.begin();
+            for (int i = from; i < to; i++) {
+                evaluator.globalScope = snapshots.get(i);
+                rules.get(i).accept(evaluator);
+            }
+        }
+    }
+
+    // Evaluates into a new AST of stylerules with only declarations, the input AST is not changed so it can be
+    // evaluated again, also by other threads with their own Evaluator. Nodes that need no evaluation are shared.
+    // A value in globals replaces every global assignment to that variable
+    public AST evaluate(AST ast, Map<String, Literal> globals) {
+        evaluated = new Stylesheet();
+        try {
+            evaluateCopy(ast, globals);
+            return new AST(evaluated);
+        } finally {
+            evaluated = null;
+        }
+    }
+
+    // Like evaluate, but into the more compact ResolvedStylesheet: per stylerule its selector and the property and
+    // value of every declaration. Made for evaluating a cached AST over and over, see Generator.generate(ResolvedStylesheet)
+    public ResolvedStylesheet resolve(AST ast, Map<String, Literal> globals) {
+        resolved = new ResolvedStylesheet();
+        try {
+            evaluateCopy(ast, globals);
+            return resolved;
+        } finally {
+            resolved = null;
+            resolvedRule = null;
         }
     }
 
+    // Evaluates without changing the input, with the global scope seeded from globals. Afterwards the evaluator is
+    // back in place, so apply and evaluateNode work as before
+    private void evaluateCopy(AST ast, Map<String, Literal> globals) {
+        begin();
+        inPlace = false;
+        this.globals = globals;
+        try {
+            for (Map.Entry<String, Literal> global : globals.entrySet()) {
+                variableValues.put(global.getKey(), global.getValue());
+            }
+            ast.root.accept(this);
+        } finally {
+            inPlace = true;
+            this.globals = Collections.emptyMap();
+        }
+    }
+
+    // Starts an evaluation that is fed one top level variable assignment or stylerule at a time through evaluateNode
+    public void begin() {
+        // Evaluates in place without overridden globals, whatever an earlier evaluate or resolve left
+        inPlace = true;
+        globals = Collections.emptyMap();
+        // Initialize variable values symbol table
+        variableValues = new HANSymbolTable<>();
+        // Start with global scope
+        variableValues.pushScope();
+    }
+
+    // Evaluates a top level node, global variables assigned by earlier nodes are still known
+    public void evaluateNode(ASTNode node) {
+        node.accept(this);
+    }
+
+    // Evaluates all variable assignments and stylerules in the stylesheet
+    @Override
+    public Void visitStylesheet(Stylesheet stylesheet) {
+        // Loop through all children
+        for (int i = 0; i < stylesheet.getChildCount(); i++) {
+            ASTNode child = stylesheet.getChild(i);
+            // Global assignments that are overridden are skipped
+            if (child instanceof VariableAssignment && globals.containsKey(((VariableAssignment) child).name.name)) {
+                continue;
+            }
+            child.accept(this);
+        }
+        return null;
+    }
+
     // Evaluates a stylerule and replaces expressions with literals
-    private void evaluateStylerule(Stylerule stylerule) {
+    @Override
+    public Void visitStylerule(Stylerule stylerule) {
         // Enter new scope
-        variableValues.addFirst(new HashMap<>());
-
-        // Get current children
-        ArrayList<ASTNode> children = stylerule.getChildren();
-        ArrayList<ASTNode> newChildren = new ArrayList<>();
-
-        // Process each child
-        for (ASTNode child : children) {
-            if (child instanceof Declaration) {
-                // Evaluate the declaration's expression
-                Declaration decl = (Declaration) child;
-                decl.expression = evaluateExpression(decl.expression);
-                newChildren.add(decl);
-            } else if (child instanceof VariableAssignment) {
-                // Store variable value but don't add to output
-                evaluateVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof IfClause) {
-                // Evaluate if clause and add resulting nodes
-                ArrayList<ASTNode> ifResult = evaluateIfClause((IfClause) child);
-                newChildren.addAll(ifResult);
-            } else {
-                newChildren.add(child);
-            }
+        variableValues.pushScope();
+
+        if (resolved != null) {
+            // Declarations go straight into the resolved rule
+            resolvedRule = new ResolvedRule(stylerule.selectors.isEmpty() ? null : stylerule.selectors.get(0));
+            evaluateBody(stylerule.body);
+            resolved.add(resolvedRule);
+            variableValues.popScope();
+            return null;
         }
 
+        // Selectors stay as they are, only the body is evaluated
+        output = new ArrayList<>();
+        evaluateBody(stylerule.body);
+
         // Replace children with evaluated children
-        stylerule.body = newChildren;
+        if (inPlace) {
+            stylerule.body = output;
+        } else {
+            Stylerule result = new Stylerule();
+            result.selectors = stylerule.selectors;
+            result.body = output;
+            evaluated.addChild(result);
+        }
 
         // Exit scope
-        variableValues.removeFirst();
+        variableValues.popScope();
+        return null;
     }
 
-    // Evaluates and stores a variable assignment
-    private void evaluateVariableAssignment(VariableAssignment assignment) {
-        // Evaluate the expression to a literal
-        Literal value = (Literal) evaluateExpression(assignment.expression);
-        // Store in current scope
-        variableValues.getFirst().put(assignment.name.name, value);
+    // Evaluates a body, declarations end up in the output and assignments only in the scope
+    private void evaluateBody(ArrayList<ASTNode> body) {
+        for (ASTNode child : body) {
+            child.accept(this);
+        }
     }
 
-    // Evaluates an if clause and returns the appropriate body content
-    private ArrayList<ASTNode> evaluateIfClause(IfClause ifClause) {
-        // Evaluate the condition
-        Expression condition = evaluateExpression(ifClause.conditionalExpression);
-
-        // Determine if condition is true or false
-        boolean conditionValue;
-        if (condition instanceof BoolLiteral) {
-            conditionValue = ((BoolLiteral) condition).value;
+    // Evaluates the declaration's expression and adds the declaration to the output
+    @Override
+    public Void visitDeclaration(Declaration declaration) {
+        Literal value = evaluateExpression(declaration.expression);
+        if (resolved != null) {
+            resolvedRule.add(declaration.property.name, value);
+        } else if (inPlace) {
+            declaration.expression = value;
+            output.add(declaration);
         } else {
-            // If not a boolean, treat as false
-            conditionValue = false;
+            Declaration result = new Declaration();
+            result.property = declaration.property;
+            result.expression = value;
+            output.add(result);
         }
+        return null;
+    }
 
-        // Enter new scope for if/else body
-        variableValues.addFirst(new HashMap<>());
+    // Evaluates and stores a variable assignment
+    @Override
+    public Void visitVariableAssignment(VariableAssignment assignment) {
+        // Evaluate the expression to a literal and store in current scope
+        variableValues.put(assignment.name.name, evaluateExpression(assignment.expression));
+        return null;
+    }
 
-        ArrayList<ASTNode> result = new ArrayList<>();
+    // Evaluates an if clause, only the body that applies ends up in the output
+    @Override
+    public Void visitIfClause(IfClause ifClause) {
+        // Evaluate the condition, if not a boolean treat as false
+        long condition = evaluatePacked(ifClause.conditionalExpression);
+        boolean conditionValue = PackedValue.unit(condition) == PackedValue.BOOL && PackedValue.value(condition) != 0;
 
         if (conditionValue) {
-            // Evaluate if body
-            for (ASTNode child : ifClause.body) {
-                if (child instanceof Declaration) {
-                    // if declaration, evaluate expression
-                    Declaration decl = (Declaration) child;
-                    decl.expression = evaluateExpression(decl.expression);
-                    result.add(decl);
-                } else if (child instanceof VariableAssignment) {
-                    // else if variable assignment, store value
-                    evaluateVariableAssignment((VariableAssignment) child);
-                } else if (child instanceof IfClause) {
-                    // else if nested if clause, evaluate it
-                    result.addAll(evaluateIfClause((IfClause) child));
-                }
-            }
+            // Enter new scope for if body
+            variableValues.pushScope();
+            evaluateBody(ifClause.body);
+            variableValues.popScope();
         } else if (ifClause.elseClause != null) {
-            // Evaluate else body
-            for (ASTNode child : ifClause.elseClause.body) {
-                if (child instanceof Declaration) {
-                    // if declaration, evaluate expression
-                    Declaration decl = (Declaration) child;
-                    decl.expression = evaluateExpression(decl.expression);
-                    result.add(decl);
-                } else if (child instanceof VariableAssignment) {
-                    // else if variable assignment, store value
-                    evaluateVariableAssignment((VariableAssignment) child);
-                } else if (child instanceof IfClause) {
-                    // else if nested if clause, evaluate it
-                    result.addAll(evaluateIfClause((IfClause) child));
-                }
-            }
+            ifClause.elseClause.accept(this);
         }
-        // If condition is false and no else clause, return empty list
+        // If condition is false and no else clause, nothing is added
+        return null;
+    }
 
-        // Exit scope
-        variableValues.removeFirst();
+    // Evaluates an else body in its own scope
+    @Override
+    public Void visitElseClause(ElseClause elseClause) {
+        variableValues.pushScope();
+        evaluateBody(elseClause.body);
+        variableValues.popScope();
+        return null;
+    }
 
-        return result;
+    // Evaluates an expression and returns a literal, only creates one when the value is computed
+    private Literal evaluateExpression(Expression expression) {
+        evaluatePacked(expression);
+        if (literal == null) {
+            literal = PackedValue.toLiteral(value);
+        }
+        return literal;
     }
 
-    // Evaluates an expression and returns a literal
-    private Expression evaluateExpression(Expression expression) {
-        // Check if already a literal
-        if (expression instanceof Literal) {
-            return expression;
-        } else if (expression instanceof VariableReference) {
-            // else if it's a variable reference, look up its value
-            return evaluateVariableReference((VariableReference) expression);
-        } else if (expression instanceof Operation) {
-            // else if it's an operation, evaluate it
-            return evaluateOperation((Operation) expression);
+    // Evaluates an expression to a packed value without creating intermediate literals
+    private long evaluatePacked(Expression expression) {
+        if (expression == null) {
+            // A missing value evaluates to nothing, and a missing condition to false
+            setLiteral(null, PackedValue.pack(PackedValue.NONE, 0));
+            return value;
         }
+        expression.accept(this);
+        return value;
+    }
+
+    // Literals evaluate to themselves
+    @Override
+    public Void visitPixelLiteral(PixelLiteral pixelLiteral) {
+        return setLiteral(pixelLiteral, PackedValue.pack(PackedValue.PIXEL, pixelLiteral.value));
+    }
+
+    @Override
+    public Void visitPercentageLiteral(PercentageLiteral percentageLiteral) {
+        return setLiteral(percentageLiteral, PackedValue.pack(PackedValue.PERCENTAGE, percentageLiteral.value));
+    }
+
+    @Override
+    public Void visitScalarLiteral(ScalarLiteral scalarLiteral) {
+        return setLiteral(scalarLiteral, PackedValue.pack(PackedValue.SCALAR, scalarLiteral.value));
+    }
 
-        return expression;
+    @Override
+    public Void visitBoolLiteral(BoolLiteral boolLiteral) {
+        return setLiteral(boolLiteral, PackedValue.pack(PackedValue.BOOL, boolLiteral.value ? 1 : 0));
+    }
+
+    @Override
+    public Void visitColorLiteral(ColorLiteral colorLiteral) {
+        // Colors cannot take part in arithmetic
+        return setLiteral(colorLiteral, PackedValue.pack(PackedValue.NONE, 0));
+    }
+
+    private Void setLiteral(Literal existing, long packed) {
+        literal = existing;
+        value = packed;
+        return null;
     }
 
     // Looks up a variable value in the scope chain
-    private Literal evaluateVariableReference(VariableReference reference) {
+    @Override
+    public Void visitVariableReference(VariableReference reference) {
         // Get the variable name
         String varName = reference.name;
 
-        // Search through scopes from innermost to outermost
-        for (int i = 0; i < variableValues.getSize(); i++) {
-            // Get current scope
-            HashMap<String, Literal> scope = variableValues.get(i);
-            // If variable found, return its value
-            if (scope.containsKey(varName)) {
-                return scope.get(varName);
-            }
+        // The Checker resolved the reference, an assignment of a literal always gives that literal. Unless its value
+        // is overridden, then the annotation is out of date and the scope chain has the value
+        VariableAssignment declaration = reference.getDeclaration();
+        if (declaration != null && declaration.expression instanceof Literal && globals.get(varName) == null) {
+            return declaration.expression.accept(this);
+        }
+
+        // Innermost binding shadows outer ones, if variable found visit its value
+        Literal bound = variableValues.get(varName);
+        if (bound != null) {
+            return bound.accept(this);
+        }
+        Literal global = variableValues.contains(varName) ? null : globalScope.get(varName);
+        if (global != null) {
+            return global.accept(this);
+        }
+        if (variableValues.contains(varName) || globalScope.containsKey(varName)) {
+            // Assigned without a value, so it has none either
+            return setLiteral(null, PackedValue.pack(PackedValue.NONE, 0));
         }
 
         // Variable not found, return default value
-        return new ScalarLiteral(0);
+        return new ScalarLiteral(0).accept(this);
     }
 
-    // Evaluates an operation and returns the result as a literal
-    private Literal evaluateOperation(Operation operation) {
-        // Evaluate both operands first
-        Literal left = (Literal) evaluateExpression(operation.lhs);
-        Literal right = (Literal) evaluateExpression(operation.rhs);
-
-        // Check operation type and evaluate
-        if (operation instanceof AddOperation) {
-            // Evaluate addition
-            return evaluateAddition(left, right);
-        } else if (operation instanceof SubtractOperation) {
-            // Evaluate subtraction
-            return evaluateSubtraction(left, right);
-        } else if (operation instanceof MultiplyOperation) {
-            // Evaluate multiplication
-            return evaluateMultiplication(left, right);
-        } else if (operation instanceof DivideOperation) {
-            // Evaluate division
-            return evaluateDivision(left, right);
-        }
-
-        return left;
+    @Override
+    public Void visitAddOperation(AddOperation operation) {
+        return evaluateOperation(operation, PackedValue::add);
     }
 
-    // Evaluates addition of two literals
-    private Literal evaluateAddition(Literal left, Literal right) {
-        // Add pixels
-        if (left instanceof PixelLiteral && right instanceof PixelLiteral) {
-            int result = ((PixelLiteral) left).value + ((PixelLiteral) right).value;
-            return new PixelLiteral(result);
-        // Add percentages
-        } else if (left instanceof PercentageLiteral && right instanceof PercentageLiteral) {
-            int result = ((PercentageLiteral) left).value + ((PercentageLiteral) right).value;
-            return new PercentageLiteral(result);
-        // Add scalars
-        } else if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            int result = ((ScalarLiteral) left).value + ((ScalarLiteral) right).value;
-            return new ScalarLiteral(result);
-        }
-        return left;
+    @Override
+    public Void visitSubtractOperation(SubtractOperation operation) {
+        return evaluateOperation(operation, PackedValue::subtract);
     }
 
-    // Evaluates subtraction of two literals
-    private Literal evaluateSubtraction(Literal left, Literal right) {
-        // Subtract pixels
-        if (left instanceof PixelLiteral && right instanceof PixelLiteral) {
-            int result = ((PixelLiteral) left).value - ((PixelLiteral) right).value;
-            return new PixelLiteral(result);
-        // Subtract percentages
-        } else if (left instanceof PercentageLiteral && right instanceof PercentageLiteral) {
-            int result = ((PercentageLiteral) left).value - ((PercentageLiteral) right).value;
-            return new PercentageLiteral(result);
-        // Subtract scalars
-        } else if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            int result = ((ScalarLiteral) left).value - ((ScalarLiteral) right).value;
-            return new ScalarLiteral(result);
-        }
-        return left;
+    @Override
+    public Void visitMultiplyOperation(MultiplyOperation operation) {
+        return evaluateOperation(operation, PackedValue::multiply);
     }
 
-    // Evaluates multiplication of two literals
-    private Literal evaluateMultiplication(Literal left, Literal right) {
-        // Multiply scalar with pixel
-        if (left instanceof ScalarLiteral && right instanceof PixelLiteral) {
-            int result = ((ScalarLiteral) left).value * ((PixelLiteral) right).value;
-            return new PixelLiteral(result);
-        // Multiply pixel with scalar
-        } else if (left instanceof PixelLiteral && right instanceof ScalarLiteral) {
-            int result = ((PixelLiteral) left).value * ((ScalarLiteral) right).value;
-            return new PixelLiteral(result);
-        // Multiply scalar with percentage
-        } else if (left instanceof ScalarLiteral && right instanceof PercentageLiteral) {
-            int result = ((ScalarLiteral) left).value * ((PercentageLiteral) right).value;
-            return new PercentageLiteral(result);
-        // Multiply percentage with scalar
-        } else if (left instanceof PercentageLiteral && right instanceof ScalarLiteral) {
-            int result = ((PercentageLiteral) left).value * ((ScalarLiteral) right).value;
-            return new PercentageLiteral(result);
-        // Multiply scalars
-        } else if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            int result = ((ScalarLiteral) left).value * ((ScalarLiteral) right).value;
-            return new ScalarLiteral(result);
-        }
-        return left;
+    @Override
+    public Void visitDivideOperation(DivideOperation operation) {
+        return evaluateOperation(operation, PackedValue::divide);
     }
 
-    // Evaluates division of two literals
-    private Literal evaluateDivision(Literal left, Literal right) {
-        // Divide scalar with pixel
-        if (left instanceof ScalarLiteral && right instanceof PixelLiteral) {
-            int result = ((ScalarLiteral) left).value / ((PixelLiteral) right).value;
-            return new PixelLiteral(result);
-        // Divide pixel with scalar
-        } else if (left instanceof PixelLiteral && right instanceof ScalarLiteral) {
-            int rightValue = ((ScalarLiteral) right).value;
-            if (rightValue == 0) {
-                return left; // Avoid division by zero // imp!
-            }
-            int result = ((PixelLiteral) left).value / rightValue;
-            return new PixelLiteral(result);
-        // Divide scalar with percentage
-        } else if (left instanceof ScalarLiteral && right instanceof PercentageLiteral) {
-            int result = ((ScalarLiteral) left).value / ((PercentageLiteral) right).value;
-            return new PercentageLiteral(result);
-        // Divide percentage with scalar
-        } else if (left instanceof PercentageLiteral && right instanceof ScalarLiteral) {
-            int rightValue = ((ScalarLiteral) right).value;
-            if (rightValue == 0) {
-                return left; // Avoid division by zero
-            }
-            int result = ((PercentageLiteral) left).value / rightValue;
-            return new PercentageLiteral(result);
-        // Divide scalars
-        } else if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            int rightValue = ((ScalarLiteral) right).value;
-            if (rightValue == 0) {
-                return left; // Avoid division by zero
-            }
-            int result = ((ScalarLiteral) left).value / rightValue;
-            return new ScalarLiteral(result);
-        }
-        return left;
+    // Evaluates both operands first, then applies the arithmetic on their packed values
+    private Void evaluateOperation(Operation operation, LongBinaryOperator arithmetic) {
+        long left = evaluatePacked(operation.lhs);
+        Literal leftLiteral = literal;
+        long right = evaluatePacked(operation.rhs);
+        value = arithmetic.applyAsLong(left, right);
+        // An unchanged value (e.g. a color operand) can keep the left literal, anything else is created on demand
+        literal = value == left ? leftLiteral : null;
+        return null;
     }
 }
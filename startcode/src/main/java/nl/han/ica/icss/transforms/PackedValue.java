@@ -0,0 +1,115 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+
+/**
+ * Numeric values packed into a single long: the unit in the upper 32 bits and the int value in the lower 32 bits.
+ * The Evaluator does all arithmetic on packed values and only creates a Literal for the final result,
+ * so intermediate results of an expression never allocate.
+ */
+public final class PackedValue {
+
+    public static final int PIXEL = 1;
+    public static final int PERCENTAGE = 2;
+    public static final int SCALAR = 3;
+    public static final int BOOL = 4;
+    // Anything that cannot take part in arithmetic, e.g. a color
+    public static final int NONE = 0;
+
+    private PackedValue() { }
+
+    public static long pack(int unit, int value) {
+        return ((long) unit << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    public static int unit(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    public static int value(long packed) {
+        return (int) packed;
+    }
+
+    // Packs a literal, colors become NONE
+    public static long of(Literal literal) {
+        if (literal instanceof PixelLiteral) {
+            return pack(PIXEL, ((PixelLiteral) literal).value);
+        } else if (literal instanceof PercentageLiteral) {
+            return pack(PERCENTAGE, ((PercentageLiteral) literal).value);
+        } else if (literal instanceof ScalarLiteral) {
+            return pack(SCALAR, ((ScalarLiteral) literal).value);
+        } else if (literal instanceof BoolLiteral) {
+            return pack(BOOL, ((BoolLiteral) literal).value ? 1 : 0);
+        }
+        return pack(NONE, 0);
+    }
+
+    // Creates the literal for a packed value, returns null for NONE
+    public static Literal toLiteral(long packed) {
+        switch (unit(packed)) {
+            case PIXEL:
+                return new PixelLiteral(value(packed));
+            case PERCENTAGE:
+                return new PercentageLiteral(value(packed));
+            case SCALAR:
+                return new ScalarLiteral(value(packed));
+            case BOOL:
+                return new BoolLiteral(value(packed) != 0);
+            default:
+                return null;
+        }
+    }
+
+    public static long add(long left, long right) {
+        // Only values of the same numeric unit can be added
+        if (unit(left) != unit(right) || !isNumeric(left)) {
+            return left;
+        }
+        return pack(unit(left), value(left) + value(right));
+    }
+
+    public static long subtract(long left, long right) {
+        // Only values of the same numeric unit can be subtracted
+        if (unit(left) != unit(right) || !isNumeric(left)) {
+            return left;
+        }
+        return pack(unit(left), value(left) - value(right));
+    }
+
+    public static long multiply(long left, long right) {
+        // One side has to be a scalar, the result gets the unit of the other side
+        if (unit(left) == SCALAR && isNumeric(right)) {
+            return pack(unit(right), value(left) * value(right));
+        } else if (unit(right) == SCALAR && isNumeric(left)) {
+            return pack(unit(left), value(left) * value(right));
+        }
+        return left;
+    }
+
+    public static long divide(long left, long right) {
+        // One side has to be a scalar, the result gets the unit of the other side
+        int unit;
+        if (unit(left) == SCALAR && isNumeric(right)) {
+            unit = unit(right);
+        } else if (unit(right) == SCALAR && isNumeric(left)) {
+            unit = unit(left);
+        } else {
+            return left;
+        }
+        // Dividing by a zero scalar keeps the left operand. A scalar divided by 0px or 0% throws an
+        // ArithmeticException, like it always has
+        if (value(right) == 0 && unit(right) == SCALAR) {
+            return left;
+        }
+        return pack(unit, value(left) / value(right));
+    }
+
+    private static boolean isNumeric(long packed) {
+        int unit = unit(packed);
+        return unit == PIXEL || unit == PERCENTAGE || unit == SCALAR;
+    }
+}
@@ -0,0 +1,57 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Selector;
+
+import java.util.Arrays;
+
+/**
+ * An evaluated stylerule: its selector and the property names and literal values of its declarations,
+ * kept in two parallel arrays instead of Declaration nodes.
+ */
+public class ResolvedRule {
+
+    private final Selector selector;
+    private String[] properties = new String[4];
+    private Literal[] values = new Literal[4];
+    private int size;
+
+    public ResolvedRule(Selector selector) {
+        this.selector = selector;
+    }
+
+    public void add(String property, Literal value) {
+        if (size == properties.length) {
+            properties = Arrays.copyOf(properties, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        properties[size] = property;
+        values[size] = value;
+        size++;
+    }
+
+    // Null when the stylerule had no selector
+    public Selector getSelector() {
+        return selector;
+    }
+
+    public int getDeclarationCount() {
+        return size;
+    }
+
+    public String getProperty(int index) {
+        checkIndex(index);
+        return properties[index];
+    }
+
+    public Literal getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        }
+    }
+}
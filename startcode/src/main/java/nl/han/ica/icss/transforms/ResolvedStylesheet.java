@@ -0,0 +1,31 @@
+package nl.han.ica.icss.transforms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Output of {@link Evaluator#resolve}: the evaluated stylerules in stylesheet order, without variables or if clauses.
+ */
+public class ResolvedStylesheet implements Iterable<ResolvedRule> {
+
+    private final List<ResolvedRule> rules = new ArrayList<>();
+
+    public void add(ResolvedRule rule) {
+        rules.add(rule);
+    }
+
+    public List<ResolvedRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    @Override
+    public Iterator<ResolvedRule> iterator() {
+        return getRules().iterator();
+    }
+}
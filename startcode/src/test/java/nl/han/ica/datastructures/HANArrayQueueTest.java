@@ -0,0 +1,49 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANArrayQueueTest {
+
+	@Test
+	void testGrowsWhileWrappedAround() {
+		IHANQueue<Integer> queue = new HANArrayQueue<>(4);
+		int next = 0;
+		int expected = 0;
+		// Move the head into the middle of the buffer before it has to grow
+		for (int i = 0; i < 3; i++) {
+			queue.enqueue(next++);
+		}
+		assertEquals(expected++, queue.dequeue());
+		assertEquals(expected++, queue.dequeue());
+		for (int i = 0; i < 20; i++) {
+			queue.enqueue(next++);
+		}
+		assertEquals(next - expected, queue.getSize());
+		while (!queue.isEmpty()) {
+			assertEquals(expected++, queue.dequeue());
+		}
+		assertEquals(next, expected);
+	}
+
+	@Test
+	void testClear() {
+		IHANQueue<Integer> queue = new HANArrayQueue<>();
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		queue.enqueue(3);
+		assertEquals(3, queue.peek());
+	}
+
+	@Test
+	void testEmptyQueue() {
+		IHANQueue<Integer> queue = new HANArrayQueue<>();
+		assertThrows(NoSuchElementException.class, queue::peek);
+		assertThrows(NoSuchElementException.class, queue::dequeue);
+	}
+}
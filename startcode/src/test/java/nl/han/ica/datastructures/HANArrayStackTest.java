@@ -0,0 +1,29 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANArrayStackTest {
+
+	@Test
+	void testPopsInReverseOrderPastInitialCapacity() {
+		IHANStack<Integer> stack = new HANArrayStack<>(2);
+		for (int i = 0; i < 100; i++) {
+			stack.push(i);
+		}
+		assertEquals(99, stack.peek());
+		for (int i = 99; i >= 0; i--) {
+			assertEquals(i, stack.pop());
+		}
+	}
+
+	@Test
+	void testEmptyStack() {
+		IHANStack<Integer> stack = new HANArrayStack<>();
+		assertThrows(NoSuchElementException.class, stack::peek);
+		assertThrows(NoSuchElementException.class, stack::pop);
+	}
+}
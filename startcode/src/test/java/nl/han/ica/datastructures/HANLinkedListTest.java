@@ -0,0 +1,83 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANLinkedListTest {
+
+	@Test
+	void testSizeIsMaintained() {
+		IHANLinkedList<Integer> list = new HANLinkedList<>();
+		list.addFirst(2);
+		list.addLast(3);
+		list.insert(0, 1);
+		list.insert(3, 4);
+		assertEquals(4, list.getSize());
+		list.delete(3);
+		list.removeFirst();
+		assertEquals(2, list.getSize());
+		list.clear();
+		assertEquals(0, list.getSize());
+	}
+
+	@Test
+	void testTailFollowsModifications() {
+		IHANLinkedList<Integer> list = new HANLinkedList<>();
+		list.addLast(1);
+		assertEquals(1, list.getLast());
+		list.addLast(2);
+		list.addLast(3);
+		list.delete(2);
+		assertEquals(2, list.getLast());
+		list.addLast(4);
+		assertEquals(4, list.get(2));
+		list.removeFirst();
+		list.removeFirst();
+		list.removeFirst();
+		list.addLast(5);
+		assertEquals(5, list.getFirst());
+		assertEquals(5, list.getLast());
+	}
+
+	@Test
+	void testIteratesInOrder() {
+		IHANLinkedList<Integer> list = new HANLinkedList<>();
+		for (int i = 0; i < 5; i++) {
+			list.addLast(i);
+		}
+		List<Integer> seen = new ArrayList<>();
+		for (int value : list) {
+			seen.add(value);
+		}
+		assertEquals(List.of(0, 1, 2, 3, 4), seen);
+	}
+
+	@Test
+	void testIteratorFailsFast() {
+		IHANLinkedList<Integer> list = new HANLinkedList<>();
+		list.addLast(1);
+		list.addLast(2);
+		assertThrows(ConcurrentModificationException.class, () -> {
+			for (int value : list) {
+				list.addLast(value);
+			}
+		});
+	}
+
+	@Test
+	void testQueueDrainsInOrder() {
+		IHANQueue<Integer> queue = new HANQueue<>();
+		for (int i = 0; i < 1000; i++) {
+			queue.enqueue(i);
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, queue.dequeue());
+		}
+		assertTrue(queue.isEmpty());
+	}
+}
@@ -0,0 +1,54 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANSymbolTableTest {
+
+	@Test
+	void testInnerScopeShadowsOuter() {
+		IHANSymbolTable<Integer> table = new HANSymbolTable<>();
+		table.pushScope();
+		table.put("A", 1);
+		table.pushScope();
+		table.put("A", 2);
+		assertEquals(2, table.get("A"));
+		table.popScope();
+		assertEquals(1, table.get("A"));
+	}
+
+	@Test
+	void testReassignInSameScope() {
+		IHANSymbolTable<Integer> table = new HANSymbolTable<>();
+		table.pushScope();
+		table.put("A", 1);
+		table.pushScope();
+		table.put("A", 2);
+		table.put("A", 3);
+		table.popScope();
+		assertEquals(1, table.get("A"));
+	}
+
+	@Test
+	void testPopForgetsDeclarations() {
+		IHANSymbolTable<Integer> table = new HANSymbolTable<>();
+		table.pushScope();
+		table.pushScope();
+		table.put("B", 1);
+		assertTrue(table.contains("B"));
+		table.popScope();
+		assertFalse(table.contains("B"));
+		assertNull(table.get("B"));
+		assertEquals(1, table.getDepth());
+	}
+
+	@Test
+	void testEmptyTable() {
+		IHANSymbolTable<Integer> table = new HANSymbolTable<>();
+		assertThrows(NoSuchElementException.class, table::popScope);
+		assertThrows(NoSuchElementException.class, () -> table.put("A", 1));
+	}
+}
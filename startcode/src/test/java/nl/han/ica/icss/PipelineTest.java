@@ -0,0 +1,64 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.antlr.v4.runtime.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineTest {
+
+	private String resource(String name) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testValidInputNeedsNoFallback() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(resource("level3.icss"));
+		assertTrue(pipeline.isParsed());
+		assertFalse(pipeline.isLlFallback());
+		assertEquals(Fixtures.uncheckedLevel3(), pipeline.getAST());
+
+		pipeline.parseString(new SyntheticStylesheet().seed(3).rules(200).ifRatio(0.3).generate());
+		assertTrue(pipeline.isParsed());
+		assertEquals(2, pipeline.getAntlrParses());
+		assertEquals(0, pipeline.getLlFallbacks());
+	}
+
+	@Test
+	void testSyntaxErrorFallsBackToLl() {
+		String invalid = "p { width: 10px }\na { color: ; }";
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(invalid);
+		assertFalse(pipeline.isParsed());
+		assertTrue(pipeline.isLlFallback());
+		assertEquals(1, pipeline.getLlFallbacks());
+
+		// The errors are those of a single LL parse with the default error strategy
+		List<String> expected = new ArrayList<>();
+		ICSSParser parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(invalid))));
+		parser.removeErrorListeners();
+		parser.addErrorListener(new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+									int charPositionInLine, String msg, RecognitionException e) {
+				expected.add("Syntax error: " + msg);
+			}
+		});
+		parser.stylesheet();
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, pipeline.getErrors());
+	}
+}
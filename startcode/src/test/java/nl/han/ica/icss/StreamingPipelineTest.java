@@ -0,0 +1,61 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingPipelineTest {
+
+	private String compile(StreamingPipeline pipeline, String source) throws IOException {
+		StringWriter output = new StringWriter();
+		pipeline.compile(new StringReader(source), output);
+		return output.toString();
+	}
+
+	@Test
+	void testSameOutputAsPipeline() throws IOException {
+		for (long seed = 0; seed < 5; seed++) {
+			String source = new SyntheticStylesheet().seed(seed).rules(300).generate();
+			Pipeline pipeline = new Pipeline();
+			pipeline.parseString(source);
+			assertTrue(pipeline.check(), pipeline.getErrors().toString());
+			pipeline.transform();
+
+			StreamingPipeline streaming = new StreamingPipeline();
+			assertEquals(pipeline.generate(), compile(streaming, source));
+			assertTrue(streaming.getErrors().isEmpty(), streaming.getErrors().toString());
+		}
+	}
+
+	@Test
+	void testGlobalsBetweenRules() throws IOException {
+		StreamingPipeline streaming = new StreamingPipeline();
+		String css = compile(streaming, "Width := 10px;\np { width: Width; }\nWidth := 20px;\na { width: Width * 2; }\n");
+		assertEquals("p {\n  width: 10px;\n}\n\na {\n  width: 40px;\n}\n\n", css);
+		assertEquals(4, streaming.getNodeCount());
+	}
+
+	@Test
+	void testRulesWithErrorsAreSkipped() throws IOException {
+		StreamingPipeline streaming = new StreamingPipeline();
+		String css = compile(streaming, "p { width: #ffffff; }\na { width: 1px; }\ndiv { width 2px; }\nli { height: 3px; }\n");
+		assertEquals("a {\n  width: 1px;\n}\n\nli {\n  height: 3px;\n}\n\n", css);
+		assertEquals(2, streaming.getErrors().size(), streaming.getErrors().toString());
+	}
+
+	@Test
+	void testGlobalsWithErrorsAreSkipped() throws IOException {
+		StreamingPipeline streaming = new StreamingPipeline();
+		// The second assignment is skipped, a keeps the earlier width and b reports the undefined variable
+		String css = compile(streaming, "Width := 10px;\nWidth := #ffffff + 1px;\nColor := Missing;\n"
+				+ "a { width: Width; }\nb { color: Color; }\n");
+		assertEquals("a {\n  width: 10px;\n}\n\n", css);
+		assertTrue(streaming.getErrors().stream().anyMatch(error -> error.contains("Color is not defined")),
+				streaming.getErrors().toString());
+	}
+}
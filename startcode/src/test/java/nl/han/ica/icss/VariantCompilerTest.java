@@ -0,0 +1,82 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariantCompilerTest {
+
+	private static final String SOURCE = "Brand := #ff0000;\nWidth := 100px;\nWide := FALSE;\n"
+			+ "p { color: Brand; width: Width / 2; if [Wide] { width: Width * 2; } }\n"
+			+ "a { background-color: Brand; }\n";
+
+	private static String compile(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		pipeline.transform();
+		return pipeline.generate();
+	}
+
+	@Test
+	void testVariantsReplaceGlobals() {
+		VariantCompiler compiler = new VariantCompiler(SOURCE);
+		assertTrue(compiler.isValid());
+		assertEquals(compile(SOURCE), compiler.generate(Map.of()));
+
+		String variant = compiler.generate(Map.of("Brand", new ColorLiteral("#00ff00"), "Wide", new BoolLiteral(true)));
+		assertEquals(compile(SOURCE.replace("#ff0000", "#00ff00").replace("FALSE", "TRUE")), variant);
+
+		// The AST is left as it was, so the default can be generated again
+		assertEquals(compile(SOURCE), compiler.generate(Map.of()));
+	}
+
+	@Test
+	void testEvaluateLeavesInputUntouched() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(SOURCE);
+		assertTrue(pipeline.check());
+		AST ast = pipeline.getAST();
+		String before = ast.toString();
+
+		AST evaluated = new Evaluator().evaluate(ast, Map.of("Width", new PixelLiteral(10)));
+		assertEquals(before, ast.toString());
+		assertNotSame(ast.root, evaluated.root);
+	}
+
+	@Test
+	void testConcurrentVariants() {
+		VariantCompiler compiler = new VariantCompiler(SOURCE);
+		List<Map<String, Literal>> variants = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			variants.add(Map.of("Width", new PixelLiteral(i), "Wide", new BoolLiteral(i % 2 == 0)));
+		}
+		List<String> results = compiler.generateAll(variants);
+		assertEquals(variants.size(), results.size());
+		for (int i = 0; i < variants.size(); i++) {
+			assertEquals(compiler.generate(variants.get(i)), results.get(i));
+		}
+	}
+
+	@Test
+	void testInvalidVariants() {
+		VariantCompiler compiler = new VariantCompiler(SOURCE);
+		assertThrows(IllegalArgumentException.class, () -> compiler.generate(Map.of("Brand", new PixelLiteral(1))));
+		assertThrows(IllegalArgumentException.class, () -> compiler.generate(Map.of("Height", new PixelLiteral(1))));
+
+		VariantCompiler invalid = new VariantCompiler("p { width: Missing; }");
+		assertFalse(invalid.isValid());
+		assertFalse(invalid.getErrors().isEmpty());
+		assertThrows(IllegalStateException.class, () -> invalid.generate(Map.of()));
+	}
+}
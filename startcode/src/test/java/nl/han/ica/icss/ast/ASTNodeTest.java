@@ -0,0 +1,39 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTNodeTest {
+
+	// Indexed child access has to give the same children in the same order as getChildren()
+	private void assertChildAccessMatches(ASTNode node) {
+		List<ASTNode> children = node.getChildren();
+		assertEquals(children.size(), node.getChildCount(), node.getNodeLabel());
+		for (int i = 0; i < children.size(); i++) {
+			assertSame(children.get(i), node.getChild(i), node.getNodeLabel());
+			assertChildAccessMatches(children.get(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(children.size()));
+	}
+
+	@Test
+	void testChildAccessMatchesGetChildren() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(new SyntheticStylesheet().seed(3).rules(50).ifRatio(0.4).maxIfDepth(3).generate());
+		assertChildAccessMatches(pipeline.getAST().root);
+	}
+
+	@Test
+	void testPartiallyBuiltNodes() {
+		Declaration declaration = new Declaration();
+		assertEquals(0, declaration.getChildCount());
+		declaration.expression = new VariableReference("Width");
+		assertChildAccessMatches(declaration);
+		assertChildAccessMatches(new VariableAssignment().addChild(new VariableReference("Width")));
+	}
+}
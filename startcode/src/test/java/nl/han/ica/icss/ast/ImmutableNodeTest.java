@@ -0,0 +1,78 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImmutableNodeTest {
+
+	private Stylesheet parse(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		return pipeline.getAST().root;
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		for (int level = 0; level <= 4; level++) {
+			String source;
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream("level" + level + ".icss")) {
+				source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			Stylesheet stylesheet = parse(source);
+			ImmutableNode frozen = ImmutableNode.of(stylesheet);
+			ASTNode thawed = frozen.toASTNode();
+			assertEquals(stylesheet, thawed);
+			assertEquals(stylesheet.toString(), thawed.toString());
+			assertEquals(frozen, ImmutableNode.of(thawed));
+		}
+	}
+
+	@Test
+	void testEqualsAndHashCode() {
+		String source = new SyntheticStylesheet().seed(4).rules(100).ifRatio(0.4).variableRatio(0.3).generate();
+		ImmutableNode first = ImmutableNode.of(parse(source));
+		ImmutableNode second = ImmutableNode.of(parse(source));
+		assertNotSame(first, second);
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+
+		ImmutableNode other = ImmutableNode.of(parse(source.replaceFirst("px", "%")));
+		assertNotEquals(first, other);
+		assertNotEquals(ImmutableNode.of(new PixelLiteral(1)), ImmutableNode.of(new PixelLiteral(2)));
+	}
+
+	@Test
+	void testInternerSharesSubtrees() {
+		NodeInterner interner = new NodeInterner();
+		ImmutableNode first = interner.freeze(parse("Width := 10px; p { width: Width; color: #ffffff; }"));
+		ImmutableNode second = interner.freeze(parse("a { color: #ffffff; } p { width: Width; color: #ffffff; }"));
+		// The whole p rule and the color declaration are shared
+		assertSame(first.getChild(1), second.getChild(1));
+		assertSame(first.getChild(1).getChild(2), second.getChild(0).getChild(1));
+		int size = interner.size();
+		assertSame(first, interner.freeze(parse("Width := 10px; p { width: Width; color: #ffffff; }")));
+		assertEquals(size, interner.size());
+	}
+
+	@Test
+	void testWithChildSharesSiblings() {
+		ImmutableNode stylesheet = ImmutableNode.of(parse("p { width: 1px; } a { width: 2px; } b { width: 3px; }"));
+		ImmutableNode replaced = stylesheet.withChild(1, ImmutableNode.of(parse("i { width: 4px; }")).getChild(0));
+		assertNotEquals(stylesheet, replaced);
+		assertSame(stylesheet.getChild(0), replaced.getChild(0));
+		assertSame(stylesheet.getChild(2), replaced.getChild(2));
+		assertEquals(ImmutableNode.of(parse("p { width: 1px; } i { width: 4px; } b { width: 3px; }")), replaced);
+		assertSame(stylesheet, stylesheet.withChild(0, stylesheet.getChild(0)));
+		assertThrows(UnsupportedOperationException.class, () -> stylesheet.getChildren().clear());
+		assertThrows(IndexOutOfBoundsException.class, () -> stylesheet.getChild(3));
+	}
+}
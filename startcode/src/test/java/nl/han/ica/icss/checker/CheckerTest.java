@@ -0,0 +1,130 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckerTest {
+
+	private AST parse(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private List<String> errors(AST ast) {
+		return ast.getErrors().stream().map(SemanticError::toString).collect(Collectors.toList());
+	}
+
+	// Many stylerules with errors, and globals that are assigned or change type between them
+	private String sourceWithErrors() {
+		StringBuilder source = new StringBuilder("Size := 10px;\n");
+		for (int i = 0; i < 1000; i++) {
+			if (i % 100 == 50) {
+				source.append("Size := ").append(i % 200 == 50 ? "#ffffff" : "5%").append(";\n");
+			}
+			if (i == 300) {
+				source.append("Late := TRUE;\n");
+			}
+			source.append("p").append(i).append(" { width: Size; ");
+			switch (i % 7) {
+				case 0: source.append("color: Size; "); break;
+				case 1: source.append("if [Late] { height: Size * 2; } else { height: 1px + 1%; } "); break;
+				case 2: source.append("Size := TRUE; if [Size] { width: Unknown; } "); break;
+				default: source.append("height: Size - 1px; ");
+			}
+			source.append("}\n");
+		}
+		return source.toString();
+	}
+
+	@Test
+	void testParallelGivesSameErrors() {
+		String source = sourceWithErrors();
+		AST sequential = parse(source);
+		new Checker().check(sequential);
+		AST parallel = parse(source);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new Checker().checkParallel(parallel, pool);
+		} finally {
+			pool.shutdown();
+		}
+		assertFalse(errors(sequential).isEmpty());
+		assertEquals(errors(sequential), errors(parallel));
+	}
+
+	@Test
+	void testParallelAcceptsValidStylesheets() {
+		for (long seed = 0; seed < 5; seed++) {
+			AST ast = parse(new SyntheticStylesheet().seed(seed).rules(500).ifRatio(0.4).variableRatio(0.3).generate());
+			new Checker().checkParallel(ast);
+			assertEquals(List.of(), errors(ast));
+		}
+	}
+
+	@Test
+	void testRulesOnlySeeEarlierGlobals() {
+		String source = "p { width: Late; }\nLate := 1px;\na { width: Late; }";
+		AST ast = parse(source);
+		new Checker().checkParallel(ast);
+		AST sequential = parse(source);
+		new Checker().check(sequential);
+		assertEquals(errors(sequential), errors(ast));
+		// Only the declaration before the assignment is wrong
+		assertTrue(ast.root.body.get(0).getChildren().get(1).hasError());
+		assertFalse(ast.root.body.get(2).getChildren().get(1).hasError());
+	}
+
+	@Test
+	void testAnnotations() {
+		AST ast = parse("A := 2;\np { B := A * 10px; width: B + 1px; if [TRUE] { B := 5%; height: B; } color: C; }");
+		new Checker().check(ast);
+		VariableAssignment global = (VariableAssignment) ast.root.body.get(0);
+		Stylerule stylerule = (Stylerule) ast.root.body.get(1);
+		VariableAssignment local = (VariableAssignment) stylerule.body.get(0);
+		assertEquals(ExpressionType.SCALAR, global.name.getType());
+		assertEquals(ExpressionType.PIXEL, local.name.getType());
+
+		// Every expression has its type, references point to the assignment they resolve to
+		Operation product = (Operation) local.expression;
+		assertEquals(ExpressionType.PIXEL, product.getType());
+		assertEquals(ExpressionType.SCALAR, product.lhs.getType());
+		assertSame(global, ((VariableReference) product.lhs).getDeclaration());
+		Operation sum = (Operation) ((Declaration) stylerule.body.get(1)).expression;
+		assertEquals(ExpressionType.PIXEL, sum.getType());
+		assertSame(local, ((VariableReference) sum.lhs).getDeclaration());
+
+		// The assignment in the if body shadows the one of the stylerule
+		IfClause ifClause = (IfClause) stylerule.body.get(2);
+		VariableReference height = (VariableReference) ((Declaration) ifClause.body.get(1)).expression;
+		assertSame(ifClause.body.get(0), height.getDeclaration());
+		assertEquals(ExpressionType.PERCENTAGE, height.getType());
+
+		VariableReference undefined = (VariableReference) ((Declaration) stylerule.body.get(3)).expression;
+		assertNull(undefined.getDeclaration());
+		assertEquals(ExpressionType.UNDEFINED, undefined.getType());
+	}
+
+	@Test
+	void testParallelPipeline() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setParallelCheck(true);
+		pipeline.parseString(sourceWithErrors());
+		assertFalse(pipeline.check());
+
+		Pipeline sequential = new Pipeline();
+		sequential.parseString(sourceWithErrors());
+		sequential.check();
+		assertEquals(sequential.getErrors(), pipeline.getErrors());
+	}
+}
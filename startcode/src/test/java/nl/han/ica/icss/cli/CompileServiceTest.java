@@ -0,0 +1,88 @@
+package nl.han.ica.icss.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompileServiceTest {
+
+	@Test
+	void testSharedSourceStaysCached(@TempDir Path directory) throws IOException {
+		Path first = directory.resolve("first.icss");
+		Path second = directory.resolve("second.icss");
+		Files.writeString(first, "p { width: 10px; }");
+		Files.writeString(second, "p { width: 10px; }");
+
+		CompileService service = new CompileService();
+		assertTrue(service.compile(first).isSuccess());
+		assertTrue(service.compile(second).cached);
+
+		// Changing one file doesn't take the output away from the other
+		Files.writeString(first, "p { width: 20px; }");
+		assertFalse(service.compile(first).cached);
+		assertTrue(service.compile(second).cached);
+		assertEquals(2, service.getCacheSize());
+
+		// Once no file has a source anymore, its output is forgotten
+		Files.writeString(second, "p { width: 20px; }");
+		assertTrue(service.compile(second).cached);
+		assertEquals(1, service.getCacheSize());
+	}
+
+	@Test
+	void testFailedCompileRemovesOldOutput(@TempDir Path directory) throws IOException {
+		Path input = directory.resolve("style.icss");
+		Files.writeString(input, "p { width: 10px; }");
+		CompileService service = new CompileService();
+		CompileResult result = service.compile(input);
+		assertTrue(result.isSuccess());
+		assertTrue(Files.exists(result.output));
+
+		Files.writeString(input, "p { width: Missing; }");
+		assertFalse(service.compile(input).isSuccess());
+		assertFalse(Files.exists(BatchCompiler.outputPathFor(input)));
+	}
+
+	@Test
+	void testConcurrentCompilesOfSameSource(@TempDir Path directory) throws Exception {
+		List<Path> inputs = new ArrayList<>();
+		for (int i = 0; i < 32; i++) {
+			Path input = directory.resolve("style" + i + ".icss");
+			Files.writeString(input, "p { width: 10px; }");
+			inputs.add(input);
+		}
+		CompileService service = new CompileService();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (String source : new String[]{"p { width: 10px; }", "p { width: 20px; }", "p { width: 10px; }"}) {
+				for (Path input : inputs) {
+					Files.writeString(input, source);
+				}
+				List<Future<CompileResult>> results = new ArrayList<>();
+				for (Path input : inputs) {
+					results.add(executor.submit(() -> service.compile(input)));
+				}
+				for (Future<CompileResult> result : results) {
+					assertTrue(result.get().isSuccess());
+				}
+				// Every file moved to the same source, only its output is left
+				assertEquals(1, service.getCacheSize());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		// One compile per version of the source, every other file was served from the cache
+		assertEquals(3, service.getMisses());
+		assertEquals(3 * inputs.size() - 3, service.getHits());
+	}
+}
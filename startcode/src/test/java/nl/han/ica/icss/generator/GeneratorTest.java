@@ -0,0 +1,84 @@
+package nl.han.ica.icss.generator;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorTest {
+
+	private static AST ast;
+	private static String expected;
+
+	@BeforeAll
+	static void transformStylesheet() {
+		// Large enough to be flushed to the writer many times
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(new SyntheticStylesheet().seed(5).rules(2000).generate());
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		pipeline.transform();
+		ast = pipeline.getAST();
+		expected = new Generator().generate(ast);
+	}
+
+	@Test
+	void testStreamToWriter() throws IOException {
+		StringWriter writer = new StringWriter();
+		new Generator().generate(ast, writer);
+		assertEquals(expected, writer.toString());
+	}
+
+	@Test
+	void testStreamToOutputStream() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new Generator().generate(ast, out);
+		assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testStreamToChannel() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new Generator().generate(ast, Channels.newChannel(out));
+		assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testGeneratorCanBeReused() throws IOException {
+		Generator generator = new Generator();
+		generator.generate(ast, new StringWriter());
+		assertEquals(expected, generator.generate(ast));
+	}
+
+	@Test
+	void testDeclarationWithoutExpression() {
+		// Parser error recovery can leave a declaration without a value
+		Stylerule stylerule = new Stylerule(new TagSelector("p"), new ArrayList<>());
+		stylerule.addChild(new Declaration("width"));
+		Stylesheet stylesheet = new Stylesheet();
+		stylesheet.addChild(stylerule);
+		assertEquals("p {\n  width: ;\n}\n\n", new Generator().generate(new AST(stylesheet)));
+	}
+
+	@Test
+	void testCheckedReferences() {
+		// Not transformed, a reference to a literal assignment prints that literal
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("A := 10px;\nB := A * 2;\np { width: A; height: B; }");
+		assertTrue(pipeline.check());
+		assertEquals("p {\n  width: 10px;\n  height: ;\n}\n\n", pipeline.generate());
+	}
+}
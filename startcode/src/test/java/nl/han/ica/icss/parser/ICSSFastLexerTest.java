@@ -0,0 +1,97 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Differential tests: the fast lexer has to produce exactly the tokens of the generated ICSSLexer
+class ICSSFastLexerTest {
+
+	private void assertSameTokens(String input) {
+		ICSSFastLexer fast = ICSSFastLexer.lex(input);
+		assertNotNull(fast, "Fast lexer rejected: " + input);
+
+		ICSSLexer antlr = new ICSSLexer(CharStreams.fromString(input));
+		antlr.removeErrorListeners();
+		int index = 0;
+		while (true) {
+			Token expected = antlr.nextToken();
+			Token actual = fast.nextToken();
+			String where = "token " + index + " of: " + input;
+			assertEquals(expected.getType(), actual.getType(), where);
+			assertEquals(expected.getText(), actual.getText(), where);
+			assertEquals(expected.getStartIndex(), actual.getStartIndex(), where);
+			assertEquals(expected.getStopIndex(), actual.getStopIndex(), where);
+			assertEquals(expected.getLine(), actual.getLine(), where);
+			assertEquals(expected.getCharPositionInLine(), actual.getCharPositionInLine(), where);
+			if (expected.getType() == Token.EOF) {
+				break;
+			}
+			index++;
+		}
+		assertEquals(index + 1, fast.getTokenCount());
+	}
+
+	private String resource(String name) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testLevelFiles() throws IOException {
+		for (int level = 0; level <= 4; level++) {
+			assertSameTokens(resource("level" + level + ".icss"));
+		}
+	}
+
+	@Test
+	void testSyntheticStylesheets() {
+		for (long seed = 0; seed < 5; seed++) {
+			assertSameTokens(new SyntheticStylesheet().seed(seed).rules(100).ifRatio(0.3).generate());
+		}
+	}
+
+	@Test
+	void testLongestMatch() {
+		assertSameTokens("#abcdef #abcdefg #ABCDEF #abc #a-b- #a--b9");
+		assertSameTokens(".a-b- .menu--item .b0x");
+		assertSameTokens("if iffy else elsewhere a-b- TRUE TRUEX FALSE False_1");
+		assertSameTokens("10px 10pxa 10p 50% 7 0px");
+		assertSameTokens("A := 1; a : b;[]{}+-*/");
+	}
+
+	@Test
+	void testCommentsAndWhitespace() {
+		assertSameTokens("a // comment\r\nb\t/* block\n comment */ c\n\n  d");
+		assertSameTokens("a /* never closed\n b");
+		assertSameTokens("// only a comment");
+		assertSameTokens("/* café */ p {}");
+		assertSameTokens("");
+	}
+
+	@Test
+	void testParsesWithFastLexer() throws IOException {
+		String input = resource("level3.icss");
+		ICSSParser parser = new ICSSParser(new CommonTokenStream(ICSSFastLexer.lex(input)));
+		parser.setErrorHandler(new BailErrorStrategy());
+		ASTListener listener = new ASTListener();
+		new ParseTreeWalker().walk(listener, parser.stylesheet());
+		assertEquals(Fixtures.uncheckedLevel3(), listener.getAST());
+	}
+
+	@Test
+	void testLexerErrorsAreLeftToICSSLexer() {
+		assertNull(ICSSFastLexer.lex("p { color: @; }"));
+		assertNull(ICSSFastLexer.lex("#Ab"));
+		assertNull(ICSSFastLexer.lex("p . {}"));
+		assertNull(ICSSFastLexer.lex("p { width: 10px; } é"));
+	}
+}
@@ -0,0 +1,80 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ICSSParserFactoryTest {
+
+	@Test
+	void testWarmUpAndClear() {
+		// The cache is shared by every factory, start from an empty one
+		ICSSParserFactory factory = new ICSSParserFactory();
+		factory.clear();
+		assertEquals(0, factory.getLexerDfaStates() + factory.getParserDfaStates());
+
+		factory.warmUp();
+		assertTrue(factory.getLexerDfaStates() > 0);
+		assertTrue(factory.getParserDfaStates() > 0);
+		int warm = factory.getCacheSize();
+		assertTrue(warm >= factory.getLexerDfaStates() + factory.getParserDfaStates());
+
+		// Parsing what was already seen adds nothing
+		factory.warmUp();
+		assertEquals(warm, factory.getCacheSize());
+
+		factory.clear();
+		assertEquals(0, factory.getLexerDfaStates());
+		assertEquals(0, factory.getParserDfaStates());
+		assertTrue(factory.getCacheSize() < warm);
+	}
+
+	@Test
+	void testPipelineWithFactory() {
+		Pipeline pipeline = new Pipeline(new ICSSParserFactory());
+		pipeline.parseString("p { width: 10px; }");
+		assertTrue(pipeline.isParsed());
+	}
+
+	@Test
+	void testConcurrentParsersShareCache() throws Exception {
+		List<String> sources = new ArrayList<>();
+		List<AST> expected = new ArrayList<>();
+		for (long seed = 0; seed < 8; seed++) {
+			String source = new SyntheticStylesheet().seed(seed).rules(100).ifRatio(0.3).generate();
+			sources.add(source);
+			expected.add(new ICSSRecursiveParser(ICSSFastLexer.lex(source)).parse());
+		}
+
+		// A cold cache, so the threads fill it concurrently
+		ICSSParserFactory factory = new ICSSParserFactory();
+		factory.clear();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<AST>> results = new ArrayList<>();
+			for (String source : sources) {
+				results.add(executor.submit(() -> {
+					Pipeline pipeline = new Pipeline(factory);
+					pipeline.parseString(source);
+					assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+					return pipeline.getAST();
+				}));
+			}
+			for (int i = 0; i < sources.size(); i++) {
+				assertEquals(expected.get(i), results.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(factory.getParserDfaStates() > 0);
+	}
+}
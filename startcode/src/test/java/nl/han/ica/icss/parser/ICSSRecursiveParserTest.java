@@ -0,0 +1,86 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ICSSRecursiveParserTest {
+
+	private String resource(String name) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private AST parse(String input) {
+		return new ICSSRecursiveParser(ICSSFastLexer.lex(input)).parse();
+	}
+
+	// The AST of the regular Antlr parser and ASTListener
+	private AST parseWithAntlr(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	@Test
+	void testParseLevel0() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel0(), parse(resource("level0.icss")));
+	}
+
+	@Test
+	void testParseLevel1() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel1(), parse(resource("level1.icss")));
+	}
+
+	@Test
+	void testParseLevel2() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel2(), parse(resource("level2.icss")));
+	}
+
+	@Test
+	void testParseLevel3() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel3(), parse(resource("level3.icss")));
+	}
+
+	@Test
+	void testSameAstAsAntlr() throws IOException {
+		String level4 = resource("level4.icss");
+		assertEquals(parseWithAntlr(level4), parse(level4));
+		for (long seed = 0; seed < 5; seed++) {
+			String source = new SyntheticStylesheet().seed(seed).rules(100).ifRatio(0.3).generate();
+			assertEquals(parseWithAntlr(source), parse(source));
+		}
+		String expressions = "A := 1 - 2 - 3 * 4 / 5 + [6 - 7] * 8px; p { width: A + 10% * 2; }";
+		assertEquals(parseWithAntlr(expressions), parse(expressions));
+	}
+
+	@Test
+	void testSyntaxErrors() {
+		assertThrows(ParseCancellationException.class, () -> parse("p { width: 10px }"));
+		assertThrows(ParseCancellationException.class, () -> parse("p { width: 10px; "));
+		assertThrows(ParseCancellationException.class, () -> parse("p { if [TRUE] { } else }"));
+		assertThrows(ParseCancellationException.class, () -> parse("A := ;"));
+	}
+
+	@Test
+	void testPipelineReportsAntlrErrors() {
+		String invalid = "p { width: 10px }";
+		Pipeline antlr = new Pipeline();
+		antlr.parseString(invalid);
+		Pipeline recursive = new Pipeline();
+		recursive.setRecursiveDescent(true);
+		recursive.parseString(invalid);
+		assertFalse(recursive.isParsed());
+		assertEquals(antlr.getErrors(), recursive.getErrors());
+	}
+}
@@ -0,0 +1,105 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCharStreamTest {
+
+	private static MappedCharStream stream(String input) {
+		return new MappedCharStream(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)), "test");
+	}
+
+	// Same tokens as lexing the decoded string
+	private void assertSameTokens(String input) {
+		ICSSLexer expected = new ICSSLexer(CharStreams.fromString(input));
+		ICSSLexer actual = new ICSSLexer(stream(input));
+		expected.removeErrorListeners();
+		actual.removeErrorListeners();
+		while (true) {
+			Token e = expected.nextToken();
+			Token a = actual.nextToken();
+			assertEquals(e.getType(), a.getType());
+			assertEquals(e.getText(), a.getText());
+			assertEquals(e.getStartIndex(), a.getStartIndex());
+			assertEquals(e.getLine(), a.getLine());
+			assertEquals(e.getCharPositionInLine(), a.getCharPositionInLine());
+			if (e.getType() == Token.EOF) {
+				break;
+			}
+		}
+	}
+
+	@Test
+	void testAsciiTokens() {
+		assertSameTokens(new SyntheticStylesheet().seed(1).rules(100).ifRatio(0.3).generate());
+	}
+
+	@Test
+	void testUtf8Tokens() {
+		StringBuilder source = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			// Two, three and four byte sequences, enough of them to pass several checkpoints
+			source.append("/* café – 🎨 */ p { width: ").append(i).append("px; }\n");
+		}
+		source.append("a { color: é; }");
+		assertSameTokens(source.toString());
+	}
+
+	@Test
+	void testRandomAccess() {
+		String input = "abé€🎨cd".repeat(500);
+		CharStream expected = CharStreams.fromString(input);
+		MappedCharStream actual = stream(input);
+		assertEquals(expected.size(), actual.size());
+		for (int i : new int[]{0, 1500, 7, 3499, 1024, 2048, 3, expected.size()}) {
+			expected.seek(i);
+			actual.seek(i);
+			assertEquals(expected.index(), actual.index());
+			assertEquals(expected.LA(1), actual.LA(1));
+			assertEquals(expected.LA(2), actual.LA(2));
+			assertEquals(expected.LA(-1), actual.LA(-1));
+		}
+		assertEquals(expected.getText(Interval.of(1000, 1100)), actual.getText(Interval.of(1000, 1100)));
+		assertEquals(input, actual.toString());
+	}
+
+	@Test
+	void testMalformedBytes() {
+		byte[] bytes = {'a', (byte) 0xC3, 'b', (byte) 0xFF, (byte) 0xE2, (byte) 0x82};
+		MappedCharStream stream = new MappedCharStream(ByteBuffer.wrap(bytes), "test");
+		assertEquals(6, stream.size());
+		assertEquals("a�b���", stream.toString());
+	}
+
+	@Test
+	void testParseFile(@TempDir Path directory) throws IOException {
+		String source = new SyntheticStylesheet().seed(2).rules(100).ifRatio(0.3).generate();
+		Path file = directory.resolve("big.icss");
+		Files.writeString(file, source);
+
+		Pipeline fromString = new Pipeline();
+		fromString.parseString(source);
+		Pipeline fromFile = new Pipeline();
+		fromFile.parseFile(file);
+		assertTrue(fromFile.isParsed(), fromFile.getErrors().toString());
+		assertEquals(fromString.getAST(), fromFile.getAST());
+
+		Files.writeString(file, "p { width: 10px; }\na { color: é; }");
+		fromFile.parseFile(file);
+		fromString.parseString("p { width: 10px; }\na { color: é; }");
+		assertFalse(fromFile.isParsed());
+		assertEquals(fromString.getErrors(), fromFile.getErrors());
+	}
+}
@@ -0,0 +1,51 @@
+package nl.han.ica.icss.synthetic;
+
+import nl.han.ica.icss.Pipeline;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticStylesheetTest {
+
+	private void assertCompiles(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		pipeline.transform();
+		assertTrue(pipeline.isTransformed(), pipeline.getErrors().toString());
+		assertFalse(pipeline.generate().isEmpty());
+	}
+
+	@Test
+	void testGeneratedStylesheetsCompile() {
+		for (long seed = 0; seed < 20; seed++) {
+			assertCompiles(new SyntheticStylesheet().seed(seed).rules(200).generate());
+		}
+	}
+
+	@Test
+	void testDeepNestingCompiles() {
+		assertCompiles(new SyntheticStylesheet()
+				.rules(50)
+				.ifRatio(0.5)
+				.maxIfDepth(6)
+				.maxExpressionDepth(6)
+				.variableRatio(0.3)
+				.generate());
+	}
+
+	@Test
+	void testSameSeedGivesSameOutput() {
+		String first = new SyntheticStylesheet().seed(7).rules(100).generate();
+		String second = new SyntheticStylesheet().seed(7).rules(100).generate();
+		assertEquals(first, second);
+		assertNotEquals(first, new SyntheticStylesheet().seed(8).rules(100).generate());
+	}
+
+	@Test
+	void testTargetSize() {
+		String source = new SyntheticStylesheet().targetSize(64 * 1024).generate();
+		assertTrue(source.length() >= 64 * 1024);
+	}
+}
@@ -0,0 +1,141 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckingEvaluatorTest {
+
+	private AST parse(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private List<String> errors(AST ast) {
+		return ast.getErrors().stream().map(SemanticError::toString).collect(Collectors.toList());
+	}
+
+	// Checks and evaluates the source with both passes and with the fused one, the results have to be the same
+	private void assertSameAsSeparatePasses(String source) {
+		AST separate = parse(source);
+		new Checker().check(separate);
+		List<String> expectedErrors = errors(separate);
+
+		AST fused = parse(source);
+		String before = fused.toString();
+		boolean valid = new CheckingEvaluator().checkAndApply(fused);
+		assertEquals(expectedErrors, errors(fused));
+		assertEquals(expectedErrors.isEmpty(), valid);
+		if (valid) {
+			new Evaluator().apply(separate);
+			assertEquals(new Generator().generate(separate), new Generator().generate(fused));
+		} else {
+			// Not transformed when there are errors
+			assertEquals(before, fused.toString());
+		}
+	}
+
+	@Test
+	void testLevelFiles() throws IOException {
+		for (int level = 0; level <= 4; level++) {
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream("level" + level + ".icss")) {
+				assertSameAsSeparatePasses(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	@Test
+	void testSyntheticStylesheets() {
+		for (long seed = 0; seed < 10; seed++) {
+			assertSameAsSeparatePasses(
+					new SyntheticStylesheet().seed(seed).rules(200).ifRatio(0.4).variableRatio(0.3).generate());
+		}
+	}
+
+	@Test
+	void testErrors() {
+		assertSameAsSeparatePasses("p { width: Missing; color: 10px; }");
+		assertSameAsSeparatePasses("A := 1px; p { if [A] { width: A + 1%; } else { height: #ffffff * 2; } }");
+		assertSameAsSeparatePasses("p { if [FALSE] { width: 1px * 2px; } else { color: #000000 + #ffffff; } }");
+		// An error in a body that doesn't apply still counts
+		assertSameAsSeparatePasses("p { width: 1px; if [FALSE] { B := TRUE; height: B; } }");
+	}
+
+	@Test
+	void testAnnotations() {
+		// Has an error, so the bodies stay and the annotations can be compared with the Checker's
+		String source = "A := 2;\np { B := A * 10px; width: B + 1px; if [TRUE] { B := 5%; height: B; } color: C; }";
+		AST checked = parse(source);
+		new Checker().check(checked);
+		AST fused = parse(source);
+		assertFalse(new CheckingEvaluator().checkAndApply(fused));
+		assertSameAnnotations(checked.root, fused.root);
+	}
+
+	private void assertSameAnnotations(ASTNode expected, ASTNode actual) {
+		if (expected instanceof Expression) {
+			assertEquals(((Expression) expected).getType(), ((Expression) actual).getType(), expected.getNodeLabel());
+		}
+		if (expected instanceof VariableReference) {
+			VariableAssignment declaration = ((VariableReference) expected).getDeclaration();
+			VariableAssignment actualDeclaration = ((VariableReference) actual).getDeclaration();
+			assertEquals(declaration == null, actualDeclaration == null);
+			if (declaration != null) {
+				assertEquals(declaration.toString(), actualDeclaration.toString());
+			}
+		}
+		for (int i = 0; i < expected.getChildCount(); i++) {
+			assertSameAnnotations(expected.getChild(i), actual.getChild(i));
+		}
+	}
+
+	@Test
+	void testErrorsOfEarlierPassAreCleared() {
+		AST ast = parse("p { width: Missing; }");
+		CheckingEvaluator evaluator = new CheckingEvaluator();
+		assertFalse(evaluator.checkAndApply(ast));
+		assertEquals(2, evaluator.getErrorCount());
+
+		// Once the variable is assigned the same AST is valid, the old errors don't count
+		ast.root.body.add(0, parse("Missing := 1px;").root.body.get(0));
+		assertTrue(evaluator.checkAndApply(ast));
+		assertEquals(0, evaluator.getErrorCount());
+		assertEquals(List.of(), errors(ast));
+		assertEquals("p {\n  width: 1px;\n}\n\n", new Generator().generate(ast));
+	}
+
+	@Test
+	void testPipeline() {
+		String source = new SyntheticStylesheet().seed(3).rules(100).ifRatio(0.4).variableRatio(0.3).generate();
+		Pipeline fused = new Pipeline();
+		fused.parseString(source);
+		assertTrue(fused.checkAndTransform());
+		assertTrue(fused.isTransformed());
+
+		Pipeline separate = new Pipeline();
+		separate.parseString(source);
+		separate.check();
+		separate.transform();
+		assertEquals(separate.generate(), fused.generate());
+
+		fused.parseString("p { width: Missing; }");
+		assertFalse(fused.checkAndTransform());
+		assertFalse(fused.isTransformed());
+		// The undefined variable, and the width that has no pixel or percentage value because of it
+		assertEquals(2, fused.getErrors().size());
+	}
+}
@@ -0,0 +1,112 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstantFolderTest {
+
+	private AST parse(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private String evaluate(AST ast) {
+		new Evaluator().apply(ast);
+		return new Generator().generate(ast);
+	}
+
+	@Test
+	void testFoldedAstGivesSameCss() {
+		for (long seed = 0; seed < 10; seed++) {
+			String source = new SyntheticStylesheet().seed(seed).rules(100).ifRatio(0.4).variableRatio(0.3).generate();
+			AST folded = parse(source);
+			new ConstantFolder().apply(folded);
+			assertEquals(evaluate(parse(source)), evaluate(folded));
+		}
+	}
+
+	@Test
+	void testLevelFilesGiveSameCss() throws IOException {
+		for (int level = 0; level <= 4; level++) {
+			String source;
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream("level" + level + ".icss")) {
+				source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			AST folded = parse(source);
+			new ConstantFolder().apply(folded);
+			assertEquals(evaluate(parse(source)), evaluate(folded));
+		}
+	}
+
+	@Test
+	void testFoldsEverythingConstant() {
+		AST ast = parse("Width := 10px; Use := TRUE;\n"
+				+ "p { Height := Width * 2; if [Use] { width: Height + 5px; } else { width: 1px; } }");
+		new ConstantFolder().apply(ast);
+		Stylerule stylerule = (Stylerule) ast.root.body.get(2);
+		assertEquals(1, stylerule.body.size());
+		assertEquals(new PixelLiteral(25), ((Declaration) stylerule.body.get(0)).expression);
+	}
+
+	@Test
+	void testDynamicVariablesStay() {
+		String source = "Theme := 10px; Use := FALSE;\n"
+				+ "p { width: Theme * 2 + 3px * 2; if [Use] { color: #ffffff; } if [Dark] { height: 1px; } }";
+		AST ast = parse(source);
+		new ConstantFolder(Set.of("Theme")).apply(ast);
+		Stylerule stylerule = (Stylerule) ast.root.body.get(2);
+		assertEquals(2, stylerule.body.size());
+
+		// Only the constant part of the sum is folded
+		AddOperation sum = (AddOperation) ((Declaration) stylerule.body.get(0)).expression;
+		assertTrue(sum.lhs instanceof Operation);
+		assertEquals(new PixelLiteral(6), sum.rhs);
+
+		// An unknown variable can't be decided yet
+		assertTrue(stylerule.body.get(1) instanceof IfClause);
+		assertEquals(evaluate(parse(source)), evaluate(ast));
+	}
+
+	@Test
+	void testScopesOfPrunedBranches() {
+		// The if body keeps its own scope when it still assigns a dynamic variable
+		String source = "p { X := 1px; if [TRUE] { X := Y; width: X; } height: X; }";
+		AST ast = parse(source);
+		new ConstantFolder().apply(ast);
+		Stylerule stylerule = (Stylerule) ast.root.body.get(0);
+		assertTrue(stylerule.body.get(0) instanceof IfClause);
+		assertEquals(new PixelLiteral(1), ((Declaration) stylerule.body.get(1)).expression);
+		assertEquals(evaluate(parse(source)), evaluate(ast));
+	}
+
+	// Parser error recovery can leave nodes without an expression
+	private AST parseWithMissingExpressions() {
+		AST ast = parse("A := 1px;\np { width: A; if [TRUE] { height: 2px; } color: #ffffff; }");
+		((VariableAssignment) ast.root.body.get(0)).expression = null;
+		Stylerule stylerule = (Stylerule) ast.root.body.get(1);
+		((IfClause) stylerule.body.get(1)).conditionalExpression = null;
+		((Declaration) stylerule.body.get(2)).expression = null;
+		return ast;
+	}
+
+	@Test
+	void testMissingExpressions() {
+		AST folded = parseWithMissingExpressions();
+		new ConstantFolder().apply(folded);
+		assertEquals(evaluate(parseWithMissingExpressions()), evaluate(folded));
+	}
+}
@@ -0,0 +1,145 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.ElseClause;
+import nl.han.ica.icss.ast.IfClause;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.VariableReference;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+	private AST check(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private String apply(String source) {
+		AST ast = check(source);
+		new Evaluator().apply(ast);
+		return new Generator().generate(ast);
+	}
+
+	private String applyParallel(String source) {
+		AST ast = check(source);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new Evaluator().applyParallel(ast, pool);
+		} finally {
+			pool.shutdown();
+		}
+		return new Generator().generate(ast);
+	}
+
+	@Test
+	void testParallelGivesSameCss() {
+		for (long seed = 0; seed < 5; seed++) {
+			String source = new SyntheticStylesheet().seed(seed).rules(500).ifRatio(0.4).variableRatio(0.3).generate();
+			assertEquals(apply(source), applyParallel(source));
+		}
+	}
+
+	@Test
+	void testRulesOnlySeeEarlierGlobals() {
+		StringBuilder source = new StringBuilder("Size := 1px;\nUse := FALSE;\n");
+		for (int i = 0; i < 500; i++) {
+			if (i % 100 == 50) {
+				source.append("Size := ").append(i).append("px;\nUse := ").append(i % 200 == 50 ? "TRUE" : "FALSE").append(";\n");
+			}
+			source.append("p").append(i).append(" { width: Size + 1px; if [Use] { Size := Size * 2; height: Size; } }\n");
+		}
+		assertEquals(apply(source.toString()), applyParallel(source.toString()));
+		assertTrue(applyParallel(source.toString()).contains("p399 {\n  width: 351px;\n}"));
+	}
+
+	@Test
+	void testParallelPipeline() {
+		String source = new SyntheticStylesheet().seed(7).rules(300).ifRatio(0.4).variableRatio(0.3).generate();
+		Pipeline pipeline = new Pipeline();
+		pipeline.setParallelTransform(true);
+		pipeline.parseString(source);
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		assertEquals(apply(source), pipeline.generate());
+	}
+
+	@Test
+	void testApplyAfterEvaluate() {
+		String source = "X := 1px;\np { width: X; }";
+		Evaluator evaluator = new Evaluator();
+		AST ast = check(source);
+		String copy = new Generator().generate(evaluator.evaluate(ast, Map.of("X", new PixelLiteral(5))));
+		assertEquals("p {\n  width: 5px;\n}\n\n", copy);
+
+		// Back in place and without the overridden global
+		evaluator.apply(ast);
+		assertEquals(apply(source), new Generator().generate(ast));
+
+		AST streamed = check(source);
+		evaluator.resolve(streamed, Map.of("X", new PixelLiteral(5)));
+		evaluator.begin();
+		for (ASTNode child : streamed.root.body) {
+			evaluator.evaluateNode(child);
+		}
+		assertEquals(apply(source), new Generator().generate(streamed));
+	}
+
+	@Test
+	void testOverriddenGlobalsIgnoreDeclarations() {
+		// The references are resolved to the literal assignments, the overrides still win
+		AST ast = check("X := 1px;\nY := 2px;\np { width: X; height: Y; }");
+		String css = new Generator().generate(new Evaluator().evaluate(ast, Map.of("X", new PixelLiteral(5))));
+		assertEquals("p {\n  width: 5px;\n  height: 2px;\n}\n\n", css);
+	}
+
+	// Parser error recovery can leave nodes without an expression
+	private AST astWithMissingExpressions() {
+		VariableAssignment assignment = new VariableAssignment();
+		assignment.name = new VariableReference("A");
+		Declaration height = new Declaration("height");
+		height.expression = new VariableReference("A");
+		Declaration color = new Declaration("color");
+		color.expression = new ColorLiteral("#ffffff");
+		ElseClause elseClause = new ElseClause(new ArrayList<>());
+		elseClause.addChild(color);
+		Stylerule stylerule = new Stylerule(new TagSelector("p"), new ArrayList<>());
+		stylerule.addChild(new Declaration("width"));
+		stylerule.addChild(new IfClause(null, new ArrayList<>(), elseClause));
+		stylerule.addChild(height);
+		Stylesheet stylesheet = new Stylesheet();
+		stylesheet.addChild(assignment);
+		stylesheet.addChild(stylerule);
+		return new AST(stylesheet);
+	}
+
+	@Test
+	void testMissingExpressions() {
+		// No value gives an empty declaration, a missing condition is false
+		String expected = "p {\n  width: ;\n  color: #ffffff;\n  height: ;\n}\n\n";
+		AST ast = astWithMissingExpressions();
+		assertEquals(expected, new Generator().generate(new Evaluator().evaluate(ast, Map.of())));
+		new Evaluator().apply(ast);
+		assertEquals(expected, new Generator().generate(ast));
+		AST parallel = astWithMissingExpressions();
+		new Evaluator().applyParallel(parallel);
+		assertEquals(expected, new Generator().generate(parallel));
+	}
+}
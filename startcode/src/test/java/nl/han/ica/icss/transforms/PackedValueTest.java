@@ -0,0 +1,50 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedValueTest {
+
+	@Test
+	void testRoundTripKeepsNegativeValues() {
+		long packed = PackedValue.of(new PixelLiteral(-42));
+		assertEquals(PackedValue.PIXEL, PackedValue.unit(packed));
+		assertEquals(-42, PackedValue.value(packed));
+		assertEquals(new PixelLiteral(-42), PackedValue.toLiteral(packed));
+	}
+
+	@Test
+	void testArithmeticKeepsUnits() {
+		long pixels = PackedValue.of(new PixelLiteral(10));
+		long scalar = PackedValue.of(new ScalarLiteral(3));
+		assertEquals(new PixelLiteral(20), PackedValue.toLiteral(PackedValue.add(pixels, pixels)));
+		assertEquals(new PixelLiteral(30), PackedValue.toLiteral(PackedValue.multiply(scalar, pixels)));
+		assertEquals(new PixelLiteral(3), PackedValue.toLiteral(PackedValue.divide(pixels, scalar)));
+		assertEquals(new ScalarLiteral(0), PackedValue.toLiteral(PackedValue.subtract(scalar, scalar)));
+	}
+
+	@Test
+	void testInvalidOperationsKeepLeftOperand() {
+		long pixels = PackedValue.of(new PixelLiteral(10));
+		long percentage = PackedValue.of(new PercentageLiteral(5));
+		long zero = PackedValue.of(new ScalarLiteral(0));
+		assertEquals(pixels, PackedValue.add(pixels, percentage));
+		assertEquals(pixels, PackedValue.multiply(pixels, percentage));
+		assertEquals(pixels, PackedValue.divide(pixels, zero));
+		assertNull(PackedValue.toLiteral(PackedValue.of(new ColorLiteral("#ffffff"))));
+	}
+
+	@Test
+	void testDivisionByZero() {
+		long scalar = PackedValue.of(new ScalarLiteral(6));
+		assertEquals(scalar, PackedValue.divide(scalar, PackedValue.of(new ScalarLiteral(0))));
+		assertThrows(ArithmeticException.class, () -> PackedValue.divide(scalar, PackedValue.of(new PixelLiteral(0))));
+		assertThrows(ArithmeticException.class,
+				() -> PackedValue.divide(scalar, PackedValue.of(new PercentageLiteral(0))));
+	}
+}
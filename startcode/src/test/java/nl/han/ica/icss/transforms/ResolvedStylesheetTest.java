@@ -0,0 +1,87 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolvedStylesheetTest {
+
+	private AST check(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private String evaluateInPlace(String source) {
+		AST ast = check(source);
+		new Evaluator().apply(ast);
+		return new Generator().generate(ast);
+	}
+
+	private String resolve(AST ast) {
+		return new Generator().generate(new Evaluator().resolve(ast, Map.of()));
+	}
+
+	@Test
+	void testLevelFilesGiveSameCss() throws IOException {
+		for (int level = 0; level <= 4; level++) {
+			String source;
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream("level" + level + ".icss")) {
+				source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			assertEquals(evaluateInPlace(source), resolve(check(source)));
+		}
+	}
+
+	@Test
+	void testSyntheticStylesheetsGiveSameCss() {
+		for (long seed = 0; seed < 10; seed++) {
+			String source = new SyntheticStylesheet().seed(seed).rules(100).ifRatio(0.4).variableRatio(0.3).generate();
+			AST ast = check(source);
+			String before = ast.toString();
+			assertEquals(evaluateInPlace(source), resolve(ast));
+			assertEquals(before, ast.toString());
+		}
+	}
+
+	@Test
+	void testResolvedRules() {
+		AST ast = check("W := 10px; p { width: W * 2; if [TRUE] { height: W; } } a { }");
+		ResolvedStylesheet resolved = new Evaluator().resolve(ast, Map.of("W", new PixelLiteral(3)));
+		assertEquals(2, resolved.size());
+		ResolvedRule rule = resolved.getRules().get(0);
+		assertEquals(2, rule.getDeclarationCount());
+		assertEquals("width", rule.getProperty(0));
+		assertEquals(new PixelLiteral(6), rule.getValue(0));
+		assertEquals(new PixelLiteral(3), rule.getValue(1));
+		assertEquals(0, resolved.getRules().get(1).getDeclarationCount());
+		assertThrows(IndexOutOfBoundsException.class, () -> rule.getProperty(2));
+	}
+
+	@Test
+	void testConcurrentResolves() {
+		String source = new SyntheticStylesheet().seed(3).rules(100).ifRatio(0.4).variableRatio(0.3).generate();
+		String expected = evaluateInPlace(source);
+		AST ast = check(source);
+		List<String> results = IntStream.range(0, 32).parallel()
+				.mapToObj(i -> resolve(ast))
+				.collect(Collectors.toList());
+		for (String result : results) {
+			assertEquals(expected, result);
+		}
+	}
+}